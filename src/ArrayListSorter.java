@@ -1,26 +1,508 @@
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Contains a method for sorting an ArrayList while returning the new list instead
- * of overwriting it.
+ * Contains methods for sorting ArrayLists, arrays, and columns stored off the heap.
+ * Every value is ordered like Arrays.sort: -0.0 comes before 0.0, and NaN values come
+ * last. <p>
+ * Most sorts come in two forms, like in OrderStatistics. The "InPlace" methods sort
+ * the list, array, or column they are given, for callers who do not need the
+ * original order. The other methods return a sorted copy and leave the original
+ * alone. <p>
+ * Lists are unboxed into a primitive array, sorted there, and boxed again, which is
+ * much faster than sorting the boxed values with List.sort. Besides the ordinary
+ * sort, there is a parallel sort that splits the work across the common fork/join
+ * pool, and a radix sort for large arrays. The radix sort maps each double's bit
+ * pattern to a long whose unsigned order is the same as the order of the doubles
+ * (flipping every bit of a negative value, and only the sign bit of a positive one),
+ * and then sorts those longs one byte at a time, from the lowest byte to the highest.
+ * It takes eight passes over the data no matter how it is arranged, and skips any
+ * pass in which every value has the same byte. <p>
+ * When only the smallest k values matter, the partial sorts find them without
+ * ordering the rest: either by selecting the kth smallest value with
+ * OrderStatistics and sorting only the values before it, or by keeping the k
+ * smallest values seen so far in a heap.
  * 
  * @author Ian Mays
  */
 public class ArrayListSorter {
+	// arrays shorter than this are sorted with Arrays.sort by radixSort
+	private static final int RADIX_SORT_THRESHOLD = 1 << 12;
+	private static final int RADIX_BITS = 8;
+	private static final int RADIX_BUCKETS = 1 << RADIX_BITS;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private OrderStatistics orderStatistics = new OrderStatistics();
+	
 	/**
 	 * Copies the elements of an ArrayList to a new ArrayList, then sorts the new one.
 	 * @param unsortedList The original ArrayList
 	 * @return The sorted ArrayList
 	 */
 	public ArrayList<Double> sort(ArrayList<Double> unsortedList) {
-		ArrayList<Double> sortedList = new ArrayList<>();
+		double[] values = toArray(unsortedList);
+		Arrays.sort(values);
 		
-		for (int i = 0; i < unsortedList.size(); i++) {
-			sortedList.add(unsortedList.get(i));
+		return toList(values, values.length);
+	}
+	
+	/**
+	 * Sorts an ArrayList into ascending order.
+	 * @param list The ArrayList to sort
+	 */
+	public void sortInPlace(ArrayList<Double> list) {
+		double[] values = toArray(list);
+		Arrays.sort(values);
+		
+		for (int i = 0; i < values.length; i++) {
+			list.set(i, values[i]);
+		}
+	}
+	
+	/**
+	 * Copies the elements of an ArrayList to a new ArrayList, then sorts the new one
+	 * in parallel.
+	 * @param unsortedList The original ArrayList
+	 * @return The sorted ArrayList
+	 */
+	public ArrayList<Double> parallelSort(ArrayList<Double> unsortedList) {
+		double[] values = toArray(unsortedList);
+		Arrays.parallelSort(values);
+		
+		return toList(values, values.length);
+	}
+	
+	/**
+	 * Copies an array, then sorts the copy.
+	 * @param values The original array
+	 * @return The sorted copy
+	 */
+	public double[] sort(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		
+		return sorted;
+	}
+	
+	/**
+	 * Sorts an array into ascending order.
+	 * @param values The array to sort
+	 */
+	public void sortInPlace(double[] values) {
+		Arrays.sort(values);
+	}
+	
+	/**
+	 * Copies an array, then sorts the copy in parallel.
+	 * @param values The original array
+	 * @return The sorted copy
+	 */
+	public double[] parallelSort(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.parallelSort(sorted);
+		
+		return sorted;
+	}
+	
+	/**
+	 * Sorts an array into ascending order in parallel. Arrays that are too short to
+	 * be worth splitting are sorted on the calling thread.
+	 * @param values The array to sort
+	 */
+	public void parallelSortInPlace(double[] values) {
+		Arrays.parallelSort(values);
+	}
+	
+	/**
+	 * Copies an array, then radix sorts the copy.
+	 * @param values The original array
+	 * @return The sorted copy
+	 */
+	public double[] radixSort(double[] values) {
+		double[] sorted = values.clone();
+		radixSortInPlace(sorted);
+		
+		return sorted;
+	}
+	
+	/**
+	 * Sorts an array into ascending order with an LSD radix sort, which takes O(n)
+	 * time and two scratch arrays of n longs. Every NaN value comes out as the
+	 * canonical Double.NaN.
+	 * @param values The array to sort
+	 */
+	public void radixSortInPlace(double[] values) {
+		int n = values.length;
+		
+		if (n < RADIX_SORT_THRESHOLD) {
+			Arrays.sort(values);
+			return;
+		}
+		
+		long[] keys = new long[n];
+		int[][] counts = new int[Long.SIZE / RADIX_BITS][RADIX_BUCKETS];
+		
+		// count every byte of every key in one pass, so each later pass only scatters
+		for (int i = 0; i < n; i++) {
+			long bits = Double.doubleToLongBits(values[i]);
+			long key = bits ^ (bits >> 63 | Long.MIN_VALUE);
+			keys[i] = key;
+			
+			for (int pass = 0; pass < counts.length; pass++) {
+				counts[pass][(int) (key >>> (pass * RADIX_BITS)) & (RADIX_BUCKETS - 1)]++;
+			}
+		}
+		
+		long[] source = keys;
+		long[] target = new long[n];
+		int[] next = new int[RADIX_BUCKETS];
+		
+		for (int pass = 0; pass < counts.length; pass++) {
+			int shift = pass * RADIX_BITS;
+			int[] passCounts = counts[pass];
+			
+			if (passCounts[(int) (source[0] >>> shift) & (RADIX_BUCKETS - 1)] == n) {
+				continue;
+			}
+			
+			int start = 0;
+			for (int digit = 0; digit < RADIX_BUCKETS; digit++) {
+				next[digit] = start;
+				start += passCounts[digit];
+			}
+			
+			for (int i = 0; i < n; i++) {
+				long key = source[i];
+				target[next[(int) (key >>> shift) & (RADIX_BUCKETS - 1)]++] = key;
+			}
+			
+			long[] temp = source;
+			source = target;
+			target = temp;
+		}
+		
+		for (int i = 0; i < n; i++) {
+			long key = source[i];
+			values[i] = Double.longBitsToDouble(key ^ (~key >> 63 | Long.MIN_VALUE));
+		}
+	}
+	
+	/**
+	 * Finds the k smallest values of an array, in ascending order, without modifying
+	 * the array. The values are kept in a heap of size k while the array is scanned,
+	 * which takes O(n log k) time and O(k) memory.
+	 * @param values The array of values
+	 * @param k The number of values to keep
+	 * @return The k smallest values, sorted
+	 * @throws StatsException if k is negative or larger than the length of the array
+	 */
+	public double[] partialSort(double[] values, int k) {
+		checkFor.countOutOfRange(values.length, k);
+		
+		return smallestByHeap(values, k);
+	}
+	
+	/**
+	 * Finds the k smallest values of an ArrayList, in ascending order, without
+	 * modifying the list.
+	 * @param unsortedList The original ArrayList
+	 * @param k The number of values to keep
+	 * @return A new ArrayList holding the k smallest values, sorted
+	 * @throws StatsException if k is negative or larger than the size of the list
+	 */
+	public ArrayList<Double> partialSort(ArrayList<Double> unsortedList, int k) {
+		checkFor.countOutOfRange(unsortedList.size(), k);
+		
+		double[] smallest = smallestByHeap(toArray(unsortedList), k);
+		
+		return toList(smallest, k);
+	}
+	
+	/**
+	 * Moves the k smallest values of an array to its front, in ascending order. The
+	 * value of rank k - 1 is selected with OrderStatistics, and then only the values
+	 * before it are sorted, which takes O(n + k log k) time. The values after the
+	 * first k are left in no particular order. Since the selection treats 0.0 and
+	 * -0.0 as equal, the first k values may hold one where a full sort would have
+	 * the other.
+	 * @param values The array of values, which will be reordered
+	 * @param k The number of values to sort
+	 * @throws StatsException if k is negative or larger than the length of the array
+	 */
+	public void partialSortInPlace(double[] values, int k) {
+		checkFor.countOutOfRange(values.length, k);
+		
+		if (k == 0) {
+			return;
+		}
+		
+		orderStatistics.selectInPlace(values, k - 1);
+		Arrays.sort(values, 0, k);
+	}
+	
+	/**
+	 * Copies a column stored off the heap to a new column, then sorts the new one.
+	 * The copy takes another 8 bytes per value outside the heap; use sortInPlace to
+	 * avoid it.
+	 * @param unsortedColumn The original column
+	 * @return The sorted column
+	 */
+	public OffHeapDoubleColumn sort(OffHeapDoubleColumn unsortedColumn) {
+		OffHeapDoubleColumn sortedColumn = unsortedColumn.copy();
+		
+		sortInPlace(sortedColumn);
+		
+		return sortedColumn;
+	}
+	
+	/**
+	 * Sorts a column stored off the heap into ascending order. Each chunk is copied
+	 * onto the heap, sorted, and written back, so only one chunk's worth of heap
+	 * memory is used at a time. If there is more than one chunk, the sorted chunks are
+	 * then merged into new chunks off the heap, which replace the old ones.
+	 * @param column The column to sort
+	 */
+	public void sortInPlace(OffHeapDoubleColumn column) {
+		sortChunksAndMerge(column, false);
+	}
+	
+	/**
+	 * Copies a column stored off the heap to a new column, then sorts the new one,
+	 * sorting each chunk in parallel. The copy takes another 8 bytes per value
+	 * outside the heap; use parallelSortInPlace to avoid it.
+	 * @param unsortedColumn The original column
+	 * @return The sorted column
+	 */
+	public OffHeapDoubleColumn parallelSort(OffHeapDoubleColumn unsortedColumn) {
+		OffHeapDoubleColumn sortedColumn = unsortedColumn.copy();
+		
+		parallelSortInPlace(sortedColumn);
+		
+		return sortedColumn;
+	}
+	
+	/**
+	 * Sorts a column stored off the heap into ascending order, like sortInPlace, but
+	 * sorts each chunk in parallel. The final merge of the chunks is not parallel.
+	 * @param column The column to sort
+	 */
+	public void parallelSortInPlace(OffHeapDoubleColumn column) {
+		sortChunksAndMerge(column, true);
+	}
+	
+	/**
+	 * Sorts each chunk of a column on the heap, then merges the sorted chunks.
+	 * @param column The column to sort
+	 * @param parallel Whether to sort each chunk with Arrays.parallelSort
+	 */
+	private void sortChunksAndMerge(OffHeapDoubleColumn column, boolean parallel) {
+		int chunkCount = column.getChunkCount();
+		double[] scratch = new double[(int) Math.min(column.getChunkSize(), column.size())];
+		DoubleBuffer[] runs = new DoubleBuffer[chunkCount];
+		
+		for (int i = 0; i < chunkCount; i++) {
+			runs[i] = column.getChunk(i);
+			int length = runs[i].limit();
+			
+			runs[i].get(scratch, 0, length);
+			if (parallel) {
+				Arrays.parallelSort(scratch, 0, length);
+			} else {
+				Arrays.sort(scratch, 0, length);
+			}
+			runs[i].position(0);
+			runs[i].put(scratch, 0, length);
+		}
+		
+		if (chunkCount <= 1) {
+			return;
+		}
+		
+		// min-heap of run indices, ordered by each run's next value
+		int[] heap = new int[chunkCount];
+		int[] next = new int[chunkCount];
+		int heapSize = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			heap[heapSize] = i;
+			heapSize++;
+			siftUp(heap, heapSize - 1, runs, next);
+		}
+		
+		OffHeapDoubleColumn merged = new OffHeapDoubleColumn(column.getChunkSize());
+		
+		while (heapSize > 0) {
+			int run = heap[0];
+			merged.add(runs[run].get(next[run]));
+			next[run]++;
+			
+			if (next[run] == runs[run].limit()) {
+				heapSize--;
+				heap[0] = heap[heapSize];
+			}
+			
+			siftDown(heap, heapSize, 0, runs, next);
+		}
+		
+		column.swapContents(merged);
+		merged.close();
+	}
+	
+	/**
+	 * Moves a run up the merge heap until its parent's next value is no larger.
+	 * @param heap The heap of run indices
+	 * @param position The starting position in the heap
+	 * @param runs The sorted runs
+	 * @param next The index of the next unmerged value in each run
+	 */
+	private void siftUp(int[] heap, int position, DoubleBuffer[] runs, int[] next) {
+		int run = heap[position];
+		
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			
+			if (compareNext(heap[parent], run, runs, next) <= 0) {
+				break;
+			}
+			
+			heap[position] = heap[parent];
+			position = parent;
+		}
+		
+		heap[position] = run;
+	}
+	
+	/**
+	 * Moves a run down the merge heap until neither child's next value is smaller.
+	 * @param heap The heap of run indices
+	 * @param heapSize The number of runs in the heap
+	 * @param position The starting position in the heap
+	 * @param runs The sorted runs
+	 * @param next The index of the next unmerged value in each run
+	 */
+	private void siftDown(int[] heap, int heapSize, int position, DoubleBuffer[] runs, int[] next) {
+		if (heapSize == 0) {
+			return;
 		}
 		
-		sortedList.sort(null);
+		int run = heap[position];
+		
+		while (2 * position + 1 < heapSize) {
+			int child = 2 * position + 1;
+			
+			if (child + 1 < heapSize && compareNext(heap[child + 1], heap[child], runs, next) < 0) {
+				child++;
+			}
+			
+			if (compareNext(heap[child], run, runs, next) >= 0) {
+				break;
+			}
+			
+			heap[position] = heap[child];
+			position = child;
+		}
+		
+		heap[position] = run;
+	}
+	
+	/**
+	 * @param runA The first run
+	 * @param runB The second run
+	 * @param runs The sorted runs
+	 * @param next The index of the next unmerged value in each run
+	 * @return The comparison of the two runs' next values, ordered like Double.compare
+	 */
+	private int compareNext(int runA, int runB, DoubleBuffer[] runs, int[] next) {
+		return Double.compare(runs[runA].get(next[runA]), runs[runB].get(next[runB]));
+	}
+	
+	/**
+	 * Keeps the k smallest values of an array in a max-heap, then sorts them.
+	 * @param values The array of values
+	 * @param k The number of values to keep, between 0 and the length of the array
+	 * @return The k smallest values, sorted
+	 */
+	private double[] smallestByHeap(double[] values, int k) {
+		double[] heap = new double[k];
+		
+		if (k == 0) {
+			return heap;
+		}
+		
+		for (int i = 0; i < values.length; i++) {
+			if (i < k) {
+				int position = i;
+				
+				while (position > 0 && Double.compare(heap[(position - 1) / 2], values[i]) < 0) {
+					heap[position] = heap[(position - 1) / 2];
+					position = (position - 1) / 2;
+				}
+				
+				heap[position] = values[i];
+			} else if (Double.compare(values[i], heap[0]) < 0) {
+				replaceLargest(heap, values[i]);
+			}
+		}
+		
+		Arrays.sort(heap);
+		
+		return heap;
+	}
+	
+	/**
+	 * Replaces the top of a full max-heap and moves the new value down to its place.
+	 * @param heap The max-heap
+	 * @param value The value that replaces the largest one
+	 */
+	private void replaceLargest(double[] heap, double value) {
+		int position = 0;
+		
+		while (2 * position + 1 < heap.length) {
+			int child = 2 * position + 1;
+			
+			if (child + 1 < heap.length && Double.compare(heap[child + 1], heap[child]) > 0) {
+				child++;
+			}
+			
+			if (Double.compare(heap[child], value) <= 0) {
+				break;
+			}
+			
+			heap[position] = heap[child];
+			position = child;
+		}
+		
+		heap[position] = value;
+	}
+	
+	/**
+	 * Unboxes a list into a new primitive array.
+	 * @param list The list of numbers
+	 * @return An array holding the same values in the same order
+	 */
+	private double[] toArray(ArrayList<Double> list) {
+		double[] result = new double[list.size()];
+		
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Boxes the start of an array into a new list.
+	 * @param values The array of values
+	 * @param length The number of values to copy
+	 * @return A list holding the first length values, in the same order
+	 */
+	private ArrayList<Double> toList(double[] values, int length) {
+		ArrayList<Double> result = new ArrayList<>(length);
+		
+		for (int i = 0; i < length; i++) {
+			result.add(values[i]);
+		}
 		
-		return sortedList;
+		return result;
 	}
-}
+}
\ No newline at end of file
@@ -6,11 +6,13 @@
  * @author Ian Mays
  */
 public class BinomialDistribution {
-	private CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+	private LogCombinatorics logCombinatorics = new LogCombinatorics();
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
 	
 	/**
-	 * Calculates the probability of succeeding exactly a certain number of times.
+	 * Calculates the probability of succeeding exactly a certain number of times. The
+	 * terms are added as logarithms and exponentiated once, so n can be far larger
+	 * than the 170 or so at which C(n, y) overflows a double.
 	 * @param n The number of trials
 	 * @param y The number of desired successes
 	 * @param p The probability of success
@@ -24,10 +26,10 @@ public class BinomialDistribution {
 		checkFor.tooManySuccesses(n, y);
 		checkFor.probabilityOutOfRange(p);
 		
-		double choices = comsAndPerms.combinations(n, y).doubleValue();
-		double individualProbs = Math.pow(p, y) * Math.pow(1-p, n-y);
+		double logChoices = logCombinatorics.logChoose(n, y);
+		double logIndividualProbs = logCombinatorics.xLogY(y, p) + logCombinatorics.xLog1pY(n-y, -p);
 		
-		return choices * individualProbs;
+		return Math.exp(logChoices + logIndividualProbs);
 	}
 	
 	/**
@@ -8,45 +8,111 @@ import java.math.BigInteger;
  * @author Ian Mays
  */
 public class CombinationsAndPermutations {
+	// above this k, a C(n, k) too large for a long is found as a ratio of two product
+	// trees instead of step by step
+	private static final int INCREMENTAL_LIMIT = 32;
+	// and once k is at least n / LEGENDRE_DIVISOR, factoring C(n, k) over the primes is
+	// faster than dividing the two products
+	private static final int LEGENDRE_DIVISOR = 64;
+	
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private ProductTree productTree = new ProductTree();
+	private FactorialCalculator factorials = new FactorialCalculator(productTree);
+	private LegendreCombinatorics legendre = new LegendreCombinatorics(productTree);
 	
 	/**
-	 * Computes the factorial of a number.
+	 * Computes the factorial of a number, using FactorialCalculator: small factorials
+	 * come from a shared table, and large ones from the prime swing algorithm.
 	 * @param n The integer to find the factorial of
 	 * @return The factorial
 	 * @throws StatsException if n is negative
 	 */
 	public BigInteger factorial(int n) {
+		return factorials.factorial(n);
+	}
+	
+	/**
+	 * Finds the number of combinations (i.e. unordered subsets) of r objects that
+	 * can be taken from a set of n objects. Since C(n, r) = C(n, n-r), only
+	 * k = min(r, n-r) steps are needed: the running result C(n-k+i-1, i-1) is
+	 * multiplied by n-k+i and divided by i, which is always exact. The steps are done
+	 * with longs for as long as the result fits, and with BigInteger after that. If
+	 * the result does not fit in a long and k is large, it is instead found as
+	 * (n-k+1) * ... * n / k!, with both products built by a ProductTree, since each
+	 * BigInteger step costs time in proportion to the length of the result. Once k is
+	 * also a sizeable fraction of n, the answer comes from its prime factorization
+	 * with LegendreCombinatorics, which avoids building and dividing k! altogether.
+	 * @param n The number of objects in the set
+	 * @param r The number of objects to choose from the set
+	 * @return The number of ways to choose r objects from n objects
+	 * @throws StatsException if either n or are are negative, or if r > n
+	 */
+	public BigInteger combinations(int n, int r) {
 		checkFor.negativeItems(n);
+		checkFor.negativeItems(r);
+		checkFor.tooManyItems(n, r);
 		
-		BigInteger result = BigInteger.ONE;
+		int k = Math.min(r, n - r);
+		long result = 1;
+		int i = 1;
 		
-		for (int i = 2; i <= n; i++) {
-			result = result.multiply(BigInteger.valueOf(i));
+		for (; i <= k; i++) {
+			long next = nextCombination(result, n - k + i, i);
+			
+			if (next < 0) {
+				break;
+			}
+			
+			result = next;
 		}
 		
-		return result;
+		if (i <= k && k > INCREMENTAL_LIMIT) {
+			if (k >= n / LEGENDRE_DIVISOR) {
+				return legendre.combinations(n, k);
+			}
+			
+			return productTree.productOfRange(n - k + 1, n).divide(factorials.factorial(k));
+		}
+		
+		BigInteger bigResult = BigInteger.valueOf(result);
+		
+		for (; i <= k; i++) {
+			bigResult = bigResult.multiply(BigInteger.valueOf(n - k + i)).divide(BigInteger.valueOf(i));
+		}
+		
+		return bigResult;
 	}
 	
 	/**
-	 * Finds the number of combinations (i.e. unordered subsets) of r objects that
-	 * can be taken from a set of n objects.
+	 * Finds the number of combinations of r objects that can be taken from a set of n
+	 * objects as a long, for callers who know the answer is small.
 	 * @param n The number of objects in the set
 	 * @param r The number of objects to choose from the set
 	 * @return The number of ways to choose r objects from n objects
-	 * @throws StatsException if either n or are are negative, or if r > n
+	 * @throws StatsException if either n or are are negative, if r > n, or if the
+	 * answer is larger than Long.MAX_VALUE
 	 */
-	public BigInteger combinations(int n, int r) {
+	public long combinationsLong(int n, int r) {
 		checkFor.negativeItems(n);
 		checkFor.negativeItems(r);
 		checkFor.tooManyItems(n, r);
 		
-		return factorial(n).divide(factorial(r)).divide(factorial(n-r));
+		int k = Math.min(r, n - r);
+		long result = 1;
+		
+		for (int i = 1; i <= k; i++) {
+			result = nextCombination(result, n - k + i, i);
+			
+			checkFor.tooLargeForLong(result >= 0);
+		}
+		
+		return result;
 	}
 	
 	/**
 	 * Finds the number of permutations (i.e. ordered arrangements) of r objects that
-	 * can be taken from a set of n objects.
+	 * can be taken from a set of n objects. This is n * (n-1) * ... * (n-r+1), which is
+	 * multiplied with a ProductTree rather than found by dividing two factorials.
 	 * @param n The number of objects in the set
 	 * @param r The number of objects to choose from the set
 	 * @return The number of ways to choose r objects from n objects, with ordering
@@ -57,6 +123,71 @@ public class CombinationsAndPermutations {
 		checkFor.negativeItems(r);
 		checkFor.tooManyItems(n, r);
 		
-		return factorial(n).divide(factorial(n-r));
+		if (r == 0) {
+			return BigInteger.ONE;
+		}
+		
+		return productTree.productOfRange(n - r + 1, n);
+	}
+	
+	/**
+	 * Finds the multinomial coefficient: the number of ways to split a set into groups
+	 * of the given sizes, where the order within each group does not matter. It is
+	 * found from its prime factorization with LegendreCombinatorics.
+	 * @param counts The size of each group
+	 * @return (k1 + k2 + ...)! / (k1! k2! ...)
+	 * @throws StatsException if any count is negative, or if the counts add up to more
+	 * than Integer.MAX_VALUE
+	 */
+	public BigInteger multinomial(int... counts) {
+		return legendre.multinomial(counts);
+	}
+	
+	/**
+	 * Makes a row of Pascal's triangle that computes and keeps C(n, r) for each r as
+	 * it is asked for, for callers that need many values of r with the same n.
+	 * @param n The number of objects in the set
+	 * @return The row for n
+	 * @throws StatsException if n is negative
+	 */
+	public PascalRow pascalRow(int n) {
+		return new PascalRow(n);
+	}
+	
+	/**
+	 * Takes one step of the multiplicative formula, C(m, i) = C(m-1, i-1) * m / i.
+	 * C(m-1, i-1) * m is divisible by i, so after the gcd of C(m-1, i-1) and i is
+	 * divided out, what is left of i divides m, and nothing needs to be multiplied
+	 * before it is divided.
+	 * @param previous C(m-1, i-1)
+	 * @param m The size of the set
+	 * @param i The size of the subset
+	 * @return C(m, i), or -1 if it does not fit in a long
+	 */
+	private long nextCombination(long previous, int m, int i) {
+		long divisor = gcd(previous, i);
+		long reduced = previous / divisor;
+		long factor = m / (i / divisor);
+		
+		if (Math.multiplyHigh(reduced, factor) != 0 || reduced * factor < 0) {
+			return -1;
+		}
+		
+		return reduced * factor;
+	}
+	
+	/**
+	 * @param a A non-negative number
+	 * @param b A positive number
+	 * @return The greatest common divisor of a and b
+	 */
+	private long gcd(long a, long b) {
+		while (b != 0) {
+			long remainder = a % b;
+			a = b;
+			b = remainder;
+		}
+		
+		return a;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Records the count, mean, variance, minimum, and maximum of values that many threads
+ * add at once, without making them wait for each other. In the spirit of LongAdder,
+ * the moments are striped over a fixed number of cells (by default the power of two
+ * at or above twice the number of processors), each thread records into the cell its
+ * probe hashes to, and a snapshot adds the cells together. The number of cells does
+ * not depend on how many threads come and go, so neither memory nor the cost of a
+ * snapshot grows with them. <p>
+ * Each cell keeps its moments with Welford's update, like StreamingMoments, and is
+ * guarded by a sequence number (a seqlock) that is even when the cell is idle. A
+ * writer claims the cell by moving the number from even to odd with a
+ * compare-and-set, updates it, and makes the number even again; if the claim fails
+ * because another thread holds the cell, the writer moves its probe to another cell
+ * and tries there, as LongAdder does on contention, so threads that collide once
+ * tend to spread out. A reader copies the cell and then checks that the number was
+ * even and did not change, trying again if it did. So a record call never takes a
+ * lock or allocates, while a snapshot always sees each cell in a state it actually
+ * had. The cells are read one after another, so values recorded while a snapshot is
+ * being taken may or may not be included.
+ * 
+ * @author Ian Mays
+ */
+public class ConcurrentStatsRecorder {
+	private static final VarHandle SEQUENCE;
+	
+	static {
+		try {
+			SEQUENCE = MethodHandles.lookup().findVarHandle(Cell.class, "sequence", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	// each thread's probe, shared by every recorder; never zero, so that xorshift
+	// keeps it moving
+	private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[] {(int) Thread.currentThread().getId() * 0x9E3779B9 | 1});
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private Cell[] cells;
+	
+	/**
+	 * Constructs a new ConcurrentStatsRecorder with one cell for each processor, times
+	 * two, rounded up to a power of two.
+	 */
+	public ConcurrentStatsRecorder() {
+		this(2 * Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructs a new ConcurrentStatsRecorder.
+	 * @param stripes The number of cells, which is rounded up to a power of two
+	 * @throws StatsException if stripes is not positive
+	 */
+	public ConcurrentStatsRecorder(int stripes) {
+		checkFor.nonPositiveSize(stripes);
+		
+		cells = new Cell[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = new Cell();
+		}
+	}
+	
+	/**
+	 * Records a value from the calling thread.
+	 * @param value The value to record
+	 */
+	public void record(double value) {
+		int[] probe = PROBE.get();
+		int mask = cells.length - 1;
+		Cell cell = cells[probe[0] & mask];
+		long sequence = (long) SEQUENCE.getOpaque(cell);
+		
+		while ((sequence & 1) != 0 || !SEQUENCE.compareAndSet(cell, sequence, sequence + 1)) {
+			probe[0] = advanceProbe(probe[0]);
+			cell = cells[probe[0] & mask];
+			sequence = (long) SEQUENCE.getOpaque(cell);
+			Thread.onSpinWait();
+		}
+		
+		long count = cell.count + 1;
+		double deviation = value - cell.mean;
+		double mean = cell.mean + deviation / count;
+		
+		cell.count = count;
+		cell.mean = mean;
+		cell.sumOfSquaredDeviations += deviation * (value - mean);
+		cell.min = Math.min(cell.min, value);
+		cell.max = Math.max(cell.max, value);
+		
+		SEQUENCE.setRelease(cell, sequence + 2);
+	}
+	
+	/**
+	 * Adds up every thread's cell.
+	 * @return The moments of every value recorded so far
+	 */
+	public StreamingMoments snapshot() {
+		StreamingMoments result = new StreamingMoments();
+		
+		for (Cell cell : cells) {
+			result.merge(read(cell));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return The number of values recorded so far
+	 */
+	public long getCount() {
+		return snapshot().getCount();
+	}
+	
+	/**
+	 * Finds the mean (average) of the values recorded so far.
+	 * @return The mean
+	 * @throws StatsException if no values have been recorded
+	 */
+	public double findMean() {
+		return snapshot().findMean();
+	}
+	
+	/**
+	 * Finds the (sample) variance of the values recorded so far.
+	 * @return The variance
+	 * @throws StatsException if fewer than two values have been recorded
+	 */
+	public double variance() {
+		return snapshot().variance();
+	}
+	
+	/**
+	 * Finds the standard deviation of the values recorded so far.
+	 * @return The standard deviation
+	 * @throws StatsException if fewer than two values have been recorded
+	 */
+	public double standardDeviation() {
+		return snapshot().standardDeviation();
+	}
+	
+	/**
+	 * @return The number of cells the moments are striped over
+	 */
+	public int getStripeCount() {
+		return cells.length;
+	}
+	
+	/**
+	 * Copies a cell, retrying until the copy was not torn by its writer.
+	 * @param cell The cell
+	 * @return The cell's moments at some moment during the call
+	 */
+	private StreamingMoments read(Cell cell) {
+		while (true) {
+			long before = (long) SEQUENCE.getAcquire(cell);
+			
+			long count = cell.count;
+			double mean = cell.mean;
+			double sumOfSquaredDeviations = cell.sumOfSquaredDeviations;
+			double min = cell.min;
+			double max = cell.max;
+			
+			VarHandle.loadLoadFence();
+			long after = (long) SEQUENCE.getOpaque(cell);
+			
+			if (before == after && (before & 1) == 0) {
+				return new StreamingMoments(count, mean, sumOfSquaredDeviations, min, max);
+			}
+			
+			Thread.onSpinWait();
+		}
+	}
+	
+	/**
+	 * Moves a probe to a pseudorandom new value with a xorshift step.
+	 * @param probe The current probe, which is not zero
+	 * @return The next probe, which is not zero either
+	 */
+	private static int advanceProbe(int probe) {
+		probe ^= probe << 13;
+		probe ^= probe >>> 17;
+		probe ^= probe << 5;
+		
+		return probe;
+	}
+	
+	/**
+	 * The running moments of the values recorded into one stripe. Only the thread
+	 * that has moved the sequence number to an odd value writes to it.
+	 */
+	private static class Cell {
+		private long sequence = 0;
+		private long count = 0;
+		private double mean = 0;
+		private double sumOfSquaredDeviations = 0;
+		private double min = Double.POSITIVE_INFINITY;
+		private double max = Double.NEGATIVE_INFINITY;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+/**
+ * A confidence interval for a statistic, as found by Bootstrap: the estimate from the
+ * original data, the lower and upper ends of the interval, and the confidence level.
+ * Instances cannot be changed once they are made.
+ * 
+ * @author Ian Mays
+ */
+public class ConfidenceInterval {
+	private final double estimate;
+	private final double lower;
+	private final double upper;
+	private final double confidenceLevel;
+	
+	/**
+	 * Constructs a new ConfidenceInterval.
+	 * @param estimate The statistic computed from the original data
+	 * @param lower The lower end of the interval
+	 * @param upper The upper end of the interval
+	 * @param confidenceLevel The confidence level, such as 0.95
+	 */
+	public ConfidenceInterval(double estimate, double lower, double upper, double confidenceLevel) {
+		this.estimate = estimate;
+		this.lower = lower;
+		this.upper = upper;
+		this.confidenceLevel = confidenceLevel;
+	}
+	
+	/**
+	 * @return The statistic computed from the original data
+	 */
+	public double getEstimate() {
+		return estimate;
+	}
+	
+	/**
+	 * @return The lower end of the interval
+	 */
+	public double getLower() {
+		return lower;
+	}
+	
+	/**
+	 * @return The upper end of the interval
+	 */
+	public double getUpper() {
+		return upper;
+	}
+	
+	/**
+	 * @return The confidence level, such as 0.95
+	 */
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+	
+	/**
+	 * @return The upper end minus the lower end
+	 */
+	public double getWidth() {
+		return upper - lower;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,632 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Reads numeric columns out of large delimited text files (such as CSV exports)
+ * straight into primitive arrays or streaming accumulators, without going through
+ * String.split or boxed lists. <p>
+ * The file is read through a FileChannel into a reusable byte buffer, and each line is
+ * split into fields in place. Only the selected columns are parsed, with a number
+ * parser that works directly on the bytes: plain decimal numbers with up to 15 or so
+ * significant digits and small exponents (which covers nearly everything an export
+ * produces) are converted exactly with a single multiplication or division by a power
+ * of ten, and any other plain decimal number (or NaN or Infinity) falls back to
+ * Double.parseDouble. Java-only forms such as 1f or 0x1p3, and fields padded with
+ * anything other than spaces, are not numbers here. <p>
+ * A row is skipped if it has too few fields to reach a selected column, or if any
+ * selected field is not a number, and the result says how many rows were skipped for
+ * each reason. Blank lines are ignored. Fields may be wrapped in double quotes (with
+ * "" standing for a quote inside them), but quoted fields may not contain line breaks.
+ * A column may be selected more than once, in which case it is parsed once and its
+ * value is given to every slot that asked for it. <p>
+ * Everything a read needs (the line buffer, the counts, the header) belongs to that
+ * read alone, so one reader can be used by several threads at once.
+ * 
+ * @author Ian Mays
+ */
+public class DelimitedFileReader {
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private byte delimiter;
+	private boolean hasHeader;
+	
+	/**
+	 * Constructs a reader for comma-separated files with a header line.
+	 */
+	public DelimitedFileReader() {
+		this(',', true);
+	}
+	
+	/**
+	 * Constructs a reader.
+	 * @param delimiter The character between fields, which must be ASCII
+	 * @param hasHeader Whether the first line holds column names instead of data
+	 */
+	public DelimitedFileReader(char delimiter, boolean hasHeader) {
+		checkFor.nonAsciiDelimiter(delimiter);
+		
+		this.delimiter = (byte) delimiter;
+		this.hasHeader = hasHeader;
+	}
+	
+	/**
+	 * Reads the selected columns of a file into arrays.
+	 * @param path The file to read
+	 * @param columns The indices of the columns to read, starting at zero
+	 * @return The columns, in the same order as the indices, and the row counts
+	 * @throws IOException if the file cannot be read
+	 * @throws StatsException if any column index is negative
+	 */
+	public IngestionResult readColumns(Path path, int[] columns) throws IOException {
+		ColumnBuilder[] builders = new ColumnBuilder[columns.length];
+		for (int i = 0; i < builders.length; i++) {
+			builders[i] = new ColumnBuilder();
+		}
+		
+		IngestionResult counts = streamColumns(path, columns, builders);
+		
+		double[][] result = new double[columns.length][];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = builders[i].toArray();
+		}
+		
+		return new IngestionResult(result, counts.getRowsRead(), counts.getShortRowsSkipped(), counts.getUnparseableRowsSkipped());
+	}
+	
+	/**
+	 * Reads the columns with the given names (from the header line) into arrays.
+	 * @param path The file to read
+	 * @param columnNames The names of the columns to read
+	 * @return The columns, in the same order as the names, and the row counts
+	 * @throws IOException if the file cannot be read
+	 * @throws StatsException if the reader has no header, or if a name is not in it
+	 */
+	public IngestionResult readColumns(Path path, String[] columnNames) throws IOException {
+		return readColumns(path, findColumns(path, columnNames));
+	}
+	
+	/**
+	 * Reads the selected columns of a file and hands each accepted row's values to a
+	 * consumer per column, such as StreamingMoments::add or QuantileSketch::add, so
+	 * nothing is stored at all.
+	 * @param path The file to read
+	 * @param columns The indices of the columns to read, starting at zero
+	 * @param sinks The consumer for each column, in the same order as the indices
+	 * @return The row counts (the result holds no column arrays)
+	 * @throws IOException if the file cannot be read
+	 * @throws StatsException if any column index is negative, or if there is not one
+	 * consumer per column
+	 */
+	public IngestionResult streamColumns(Path path, int[] columns, DoubleConsumer[] sinks) throws IOException {
+		checkFor.arraysNotEqualLength(columns.length, sinks.length);
+		
+		for (int column : columns) {
+			checkFor.negativeItems(column);
+		}
+		
+		ReadPass pass = new ReadPass(delimiter, hasHeader, columns);
+		pass.readLines(path, sinks, false);
+		
+		return new IngestionResult(null, pass.rowsRead, pass.shortRowsSkipped, pass.unparseableRowsSkipped);
+	}
+	
+	/**
+	 * Reads the columns with the given names (from the header line) and hands their
+	 * values to one consumer per column.
+	 * @param path The file to read
+	 * @param columnNames The names of the columns to read
+	 * @param sinks The consumer for each column, in the same order as the names
+	 * @return The row counts (the result holds no column arrays)
+	 * @throws IOException if the file cannot be read
+	 * @throws StatsException if the reader has no header, or if a name is not in it
+	 */
+	public IngestionResult streamColumns(Path path, String[] columnNames, DoubleConsumer[] sinks) throws IOException {
+		return streamColumns(path, findColumns(path, columnNames), sinks);
+	}
+	
+	/**
+	 * Reads the header line of a file and looks up the index of each column name.
+	 * @param path The file to read
+	 * @param columnNames The names to look up
+	 * @return The index of each name
+	 * @throws IOException if the file cannot be read
+	 * @throws StatsException if the reader has no header, or if a name is not in it
+	 */
+	private int[] findColumns(Path path, String[] columnNames) throws IOException {
+		checkFor.noHeader(hasHeader);
+		
+		ReadPass pass = new ReadPass(delimiter, hasHeader, new int[0]);
+		pass.readLines(path, null, true);
+		ArrayList<String> names = new ArrayList<>(Arrays.asList(pass.header == null ? new String[0] : pass.header));
+		
+		int[] columns = new int[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			columns[i] = names.indexOf(columnNames[i]);
+			checkFor.unknownColumn(columns[i] >= 0, columnNames[i]);
+		}
+		
+		return columns;
+	}
+	
+	/**
+	 * The state of a single read of a file: the current line, where each selected
+	 * field goes, and the row counts.
+	 */
+	private static class ReadPass {
+		private byte delimiter;
+		private boolean hasHeader;
+		private byte[] line = new byte[256];
+		private int lineLength;
+		// the slot each field is parsed into, or -1 if it is not selected; a field
+		// selected more than once is parsed into its first slot
+		private int[] slotOfField;
+		// the slot each selected column's value is read from
+		private int[] sourceSlot;
+		private int distinctFields;
+		private double[] rowValues;
+		private String[] header;
+		private long rowsRead;
+		private long shortRowsSkipped;
+		private long unparseableRowsSkipped;
+		private boolean lastFieldValid;
+		
+		ReadPass(byte delimiter, boolean hasHeader, int[] columns) {
+			this.delimiter = delimiter;
+			this.hasHeader = hasHeader;
+			
+			int maxColumn = -1;
+			for (int column : columns) {
+				maxColumn = Math.max(maxColumn, column);
+			}
+			
+			slotOfField = new int[maxColumn + 1];
+			Arrays.fill(slotOfField, -1);
+			sourceSlot = new int[columns.length];
+			
+			for (int i = 0; i < columns.length; i++) {
+				if (slotOfField[columns[i]] < 0) {
+					slotOfField[columns[i]] = i;
+					distinctFields++;
+				}
+				
+				sourceSlot[i] = slotOfField[columns[i]];
+			}
+			
+			rowValues = new double[columns.length];
+		}
+		
+		/**
+		 * Reads a file through a byte buffer and processes one line at a time.
+		 * @param path The file to read
+		 * @param sinks The consumers for the selected columns
+		 * @param headerOnly Whether to stop after reading the header
+		 * @throws IOException if the file cannot be read
+		 */
+		private void readLines(Path path, DoubleConsumer[] sinks, boolean headerOnly) throws IOException {
+			boolean headerPending = hasHeader;
+			lineLength = 0;
+			
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				byte[] bytes = new byte[READ_BUFFER_SIZE];
+				ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				boolean endOfFile = false;
+				
+				while (!endOfFile) {
+					buffer.clear();
+					int read = channel.read(buffer);
+					
+					if (read < 0) {
+						endOfFile = true;
+						read = 0;
+					}
+					
+					int lineStart = 0;
+					for (int i = 0; i < read; i++) {
+						if (bytes[i] != '\n') {
+							continue;
+						}
+						
+						appendToLine(bytes, lineStart, i - lineStart);
+						lineStart = i + 1;
+						
+						if (headerPending) {
+							header = splitHeader();
+							headerPending = false;
+							
+							if (headerOnly) {
+								return;
+							}
+						} else {
+							processLine(sinks);
+						}
+						
+						lineLength = 0;
+					}
+					
+					appendToLine(bytes, lineStart, read - lineStart);
+				}
+				
+				// the last line may not end with a line break
+				if (lineLength > 0) {
+					if (headerPending) {
+						header = splitHeader();
+					} else if (!headerOnly) {
+						processLine(sinks);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Adds bytes to the end of the current line, growing the line buffer if needed.
+		 * @param bytes The source of the bytes
+		 * @param start The index of the first byte to add
+		 * @param length The number of bytes to add
+		 */
+		private void appendToLine(byte[] bytes, int start, int length) {
+			if (lineLength + length > line.length) {
+				line = Arrays.copyOf(line, Math.max(2 * line.length, lineLength + length));
+			}
+			
+			System.arraycopy(bytes, start, line, lineLength, length);
+			lineLength += length;
+		}
+		
+		/**
+		 * Splits the current line into fields, parses the selected ones, and passes them
+		 * to the consumers if every one of them is a number.
+		 * @param sinks The consumers for the selected columns
+		 */
+		private void processLine(DoubleConsumer[] sinks) {
+			int end = lineLength;
+			if (end > 0 && line[end - 1] == '\r') {
+				end--;
+			}
+			
+			if (end == 0) {
+				return;
+			}
+			
+			rowsRead++;
+			
+			int field = 0;
+			int fieldStart = 0;
+			int found = 0;
+			
+			while (field < slotOfField.length) {
+				int fieldEnd = findFieldEnd(fieldStart, end);
+				
+				if (slotOfField[field] >= 0) {
+					double value = parseField(fieldStart, fieldEnd);
+					
+					if (!lastFieldValid) {
+						unparseableRowsSkipped++;
+						return;
+					}
+					
+					rowValues[slotOfField[field]] = value;
+					found++;
+				}
+				
+				field++;
+				
+				if (fieldEnd >= end) {
+					break;
+				}
+				
+				fieldStart = fieldEnd + 1;
+			}
+			
+			if (found < distinctFields) {
+				shortRowsSkipped++;
+				return;
+			}
+			
+			for (int i = 0; i < sinks.length; i++) {
+				sinks[i].accept(rowValues[sourceSlot[i]]);
+			}
+		}
+		
+		/**
+		 * Finds where the field starting at a given index ends, skipping over delimiters
+		 * inside double quotes.
+		 * @param start The index of the field's first byte
+		 * @param end The end of the line
+		 * @return The index of the delimiter after the field, or the end of the line
+		 */
+		private int findFieldEnd(int start, int end) {
+			boolean quoted = false;
+			
+			for (int i = start; i < end; i++) {
+				if (line[i] == '"') {
+					quoted = !quoted;
+				} else if (line[i] == delimiter && !quoted) {
+					return i;
+				}
+			}
+			
+			return end;
+		}
+		
+		/**
+		 * Parses a field as a number, ignoring surrounding spaces and double quotes.
+		 * Afterwards lastFieldValid says whether the field was a number at all.
+		 * @param start The index of the field's first byte
+		 * @param end The index just past the field's last byte
+		 * @return The number, or NaN if the field is not a number
+		 */
+		private double parseField(int start, int end) {
+			while (start < end && line[start] == ' ') {
+				start++;
+			}
+			while (end > start && line[end - 1] == ' ') {
+				end--;
+			}
+			
+			if (end - start >= 2 && line[start] == '"' && line[end - 1] == '"') {
+				start++;
+				end--;
+			}
+			
+			lastFieldValid = true;
+			
+			return parseNumber(start, end);
+		}
+		
+		/**
+		 * Parses [sign] digits [. digits] [e [sign] digits] directly from the line's bytes.
+		 * If the digits fit in 53 bits and the power of ten is at most 22, both are exact
+		 * doubles and one multiplication or division gives the correctly rounded result.
+		 * Anything else is handed to Double.parseDouble.
+		 * @param start The index of the first byte
+		 * @param end The index just past the last byte
+		 * @return The number, or NaN if the text is not a number
+		 */
+		private double parseNumber(int start, int end) {
+			int i = start;
+			boolean negative = false;
+			
+			if (i < end && (line[i] == '-' || line[i] == '+')) {
+				negative = line[i] == '-';
+				i++;
+			}
+			
+			long mantissa = 0;
+			int digits = 0;
+			int exponent = 0;
+			boolean overflow = false;
+			
+			while (i < end && line[i] >= '0' && line[i] <= '9') {
+				if (mantissa < MAX_EXACT_MANTISSA) {
+					mantissa = 10 * mantissa + (line[i] - '0');
+				} else {
+					overflow = true;
+				}
+				
+				digits++;
+				i++;
+			}
+			
+			if (i < end && line[i] == '.') {
+				i++;
+				
+				while (i < end && line[i] >= '0' && line[i] <= '9') {
+					if (mantissa < MAX_EXACT_MANTISSA) {
+						mantissa = 10 * mantissa + (line[i] - '0');
+						exponent--;
+					} else {
+						overflow = true;
+					}
+					
+					digits++;
+					i++;
+				}
+			}
+			
+			if (digits > 0 && i < end && (line[i] == 'e' || line[i] == 'E')) {
+				i++;
+				boolean negativeExponent = false;
+				
+				if (i < end && (line[i] == '-' || line[i] == '+')) {
+					negativeExponent = line[i] == '-';
+					i++;
+				}
+				
+				int exponentDigits = 0;
+				int explicitExponent = 0;
+				
+				while (i < end && line[i] >= '0' && line[i] <= '9') {
+					explicitExponent = Math.min(10 * explicitExponent + (line[i] - '0'), 100000);
+					exponentDigits++;
+					i++;
+				}
+				
+				if (exponentDigits == 0) {
+					return parseSlowly(start, end);
+				}
+				
+				exponent += negativeExponent ? -explicitExponent : explicitExponent;
+			}
+			
+			if (digits == 0 || i != end || overflow || mantissa >= MAX_EXACT_MANTISSA || Math.abs(exponent) >= POWERS_OF_TEN.length) {
+				return parseSlowly(start, end);
+			}
+			
+			double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			
+			return negative ? -value : value;
+		}
+		
+		/**
+		 * Parses a number with Double.parseDouble, for text the fast path cannot handle.
+		 * Only text that isPlainNumber accepts is handed over.
+		 * @param start The index of the first byte
+		 * @param end The index just past the last byte
+		 * @return The number, or NaN if the text is not a number
+		 */
+		private double parseSlowly(int start, int end) {
+			if (!isPlainNumber(start, end)) {
+				lastFieldValid = false;
+				return Double.NaN;
+			}
+			
+			try {
+				return Double.parseDouble(new String(line, start, end - start, StandardCharsets.ISO_8859_1));
+			} catch (NumberFormatException e) {
+				lastFieldValid = false;
+				return Double.NaN;
+			}
+		}
+		
+		/**
+		 * Checks that text is [sign] digits [. digits] [e [sign] digits], with at least
+		 * one digit before the exponent, or NaN or Infinity with an optional sign. This
+		 * rules out the Java literal forms that Double.parseDouble also accepts, such
+		 * as 1f, 2d, 0x1p3, and text padded with tabs or other whitespace, none of which
+		 * belong in a delimited file.
+		 * @param start The index of the first byte
+		 * @param end The index just past the last byte
+		 * @return Whether the text is a plain number
+		 */
+		private boolean isPlainNumber(int start, int end) {
+			int i = start;
+			
+			if (i < end && (line[i] == '-' || line[i] == '+')) {
+				i++;
+			}
+			
+			if (matches(i, end, "NaN") || matches(i, end, "Infinity")) {
+				return true;
+			}
+			
+			int digits = 0;
+			while (i < end && line[i] >= '0' && line[i] <= '9') {
+				digits++;
+				i++;
+			}
+			
+			if (i < end && line[i] == '.') {
+				i++;
+				
+				while (i < end && line[i] >= '0' && line[i] <= '9') {
+					digits++;
+					i++;
+				}
+			}
+			
+			if (digits == 0) {
+				return false;
+			}
+			
+			if (i < end && (line[i] == 'e' || line[i] == 'E')) {
+				i++;
+				
+				if (i < end && (line[i] == '-' || line[i] == '+')) {
+					i++;
+				}
+				
+				int exponentDigits = 0;
+				while (i < end && line[i] >= '0' && line[i] <= '9') {
+					exponentDigits++;
+					i++;
+				}
+				
+				if (exponentDigits == 0) {
+					return false;
+				}
+			}
+			
+			return i == end;
+		}
+		
+		/**
+		 * @param start The index of the first byte
+		 * @param end The index just past the last byte
+		 * @param token An ASCII word
+		 * @return Whether the bytes are exactly the word
+		 */
+		private boolean matches(int start, int end, String token) {
+			if (end - start != token.length()) {
+				return false;
+			}
+			
+			for (int i = 0; i < token.length(); i++) {
+				if (line[start + i] != token.charAt(i)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Splits the current line into column names.
+		 * @return The names, with surrounding spaces and quotes removed
+		 */
+		private String[] splitHeader() {
+			int end = lineLength;
+			if (end > 0 && line[end - 1] == '\r') {
+				end--;
+			}
+			
+			ArrayList<String> names = new ArrayList<>();
+			int fieldStart = 0;
+			
+			while (true) {
+				int fieldEnd = findFieldEnd(fieldStart, end);
+				String name = new String(line, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8).trim();
+				
+				if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+					name = name.substring(1, name.length() - 1).replace("\"\"", "\"");
+				}
+				
+				names.add(name);
+				
+				if (fieldEnd >= end) {
+					break;
+				}
+				
+				fieldStart = fieldEnd + 1;
+			}
+			
+			return names.toArray(new String[0]);
+		}
+	}
+	
+	/**
+	 * A growable primitive array that collects one column's values.
+	 */
+	private static class ColumnBuilder implements DoubleConsumer {
+		private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+		private double[] values = new double[1024];
+		private int size = 0;
+		
+		@Override
+		public void accept(double value) {
+			if (size == values.length) {
+				checkFor.tooManyValuesToCopy(size + 1L);
+				
+				values = Arrays.copyOf(values, (int) Math.min(2L * values.length, Integer.MAX_VALUE - 8));
+			}
+			
+			values[size++] = value;
+		}
+		
+		double[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+/**
+ * A summary of a list of numbers: its count, mean, median, modes, variance, standard
+ * deviation, minimum, maximum, quartiles, interquartile range, skewness, and
+ * kurtosis, as found all at once by NumericalMeasures.describe. Instances cannot be
+ * changed once they are made. <p>
+ * The quartiles interpolate between ranks the same way OrderStatistics.quantile
+ * does. The skewness and kurtosis are the plain moment estimates g1 = m3 / m2^(3/2)
+ * and g2 = m4 / m2^2 - 3, where mk is the average of the kth powers of the deviations
+ * from the mean. Both are NaN if every value is the same.
+ * 
+ * @author Ian Mays
+ */
+public class DescriptiveSummary {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private final int count;
+	private final double mean;
+	private final double median;
+	private final ModeResult modes;
+	private final double sumOfSquaredDeviations;
+	private final double min;
+	private final double max;
+	private final double firstQuartile;
+	private final double thirdQuartile;
+	private final double skewness;
+	private final double kurtosis;
+	
+	/**
+	 * Constructs a new DescriptiveSummary.
+	 * @param count The number of values
+	 * @param mean The mean of the values
+	 * @param median The median of the values
+	 * @param modes The modes of the values
+	 * @param sumOfSquaredDeviations The sum of the squared deviations from the mean
+	 * @param min The smallest value
+	 * @param max The largest value
+	 * @param firstQuartile The 0.25 quantile
+	 * @param thirdQuartile The 0.75 quantile
+	 * @param skewness The skewness g1
+	 * @param kurtosis The excess kurtosis g2
+	 */
+	public DescriptiveSummary(int count, double mean, double median, ModeResult modes, double sumOfSquaredDeviations, double min, double max,
+			double firstQuartile, double thirdQuartile, double skewness, double kurtosis) {
+		this.count = count;
+		this.mean = mean;
+		this.median = median;
+		this.modes = modes;
+		this.sumOfSquaredDeviations = sumOfSquaredDeviations;
+		this.min = min;
+		this.max = max;
+		this.firstQuartile = firstQuartile;
+		this.thirdQuartile = thirdQuartile;
+		this.skewness = skewness;
+		this.kurtosis = kurtosis;
+	}
+	
+	/**
+	 * @return The number of values
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return The mean (average)
+	 */
+	public double findMean() {
+		return mean;
+	}
+	
+	/**
+	 * @return The median
+	 */
+	public double findMedian() {
+		return median;
+	}
+	
+	/**
+	 * @return The smallest mode, like NumericalMeasures.findMode
+	 */
+	public double findMode() {
+		return modes.getSmallestMode();
+	}
+	
+	/**
+	 * @return Every mode and how often each occurs
+	 */
+	public ModeResult findModes() {
+		return modes;
+	}
+	
+	/**
+	 * @return The (sample) variance, dividing by one less than the number of values
+	 * @throws StatsException if there are fewer than two values
+	 */
+	public double variance() {
+		checkFor.lengthNotBigEnough(count, 2);
+		
+		return sumOfSquaredDeviations / (count - 1);
+	}
+	
+	/**
+	 * @return The standard deviation
+	 * @throws StatsException if there are fewer than two values
+	 */
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+	
+	/**
+	 * @return The smallest value
+	 */
+	public double getMin() {
+		return min;
+	}
+	
+	/**
+	 * @return The largest value
+	 */
+	public double getMax() {
+		return max;
+	}
+	
+	/**
+	 * @return The first quartile (the 0.25 quantile)
+	 */
+	public double getFirstQuartile() {
+		return firstQuartile;
+	}
+	
+	/**
+	 * @return The third quartile (the 0.75 quantile)
+	 */
+	public double getThirdQuartile() {
+		return thirdQuartile;
+	}
+	
+	/**
+	 * @return The interquartile range, the third quartile minus the first
+	 */
+	public double interquartileRange() {
+		return thirdQuartile - firstQuartile;
+	}
+	
+	/**
+	 * @return The skewness g1, which is positive when the right tail is longer
+	 */
+	public double skewness() {
+		return skewness;
+	}
+	
+	/**
+	 * @return The excess kurtosis g2, which is zero for a normal distribution and
+	 * positive when the tails are heavier than normal
+	 */
+	public double kurtosis() {
+		return kurtosis;
+	}
+}
\ No newline at end of file
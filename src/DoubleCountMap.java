@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * A hash map from double values to int counts, used for finding modes and frequency
+ * tables without sorting. The keys and counts are kept in primitive arrays with open
+ * addressing (linear probing), so nothing is boxed and counting n values takes
+ * expected O(n) time. <p>
+ * Two keys are the same if they are == to each other, except that all NaN values are
+ * counted together as a single key. In particular, 0.0 and -0.0 are the same key.
+ * 
+ * @author Ian Mays
+ */
+public class DoubleCountMap {
+	private static final int MINIMUM_CAPACITY = 16;
+	// the largest power of two an array can hold, so the table is never more than
+	// half full at most MAXIMUM_CAPACITY / 2 distinct keys
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private long[] keyBits;
+	private int[] counts;
+	private int size = 0;
+	
+	/**
+	 * Constructs an empty map.
+	 */
+	public DoubleCountMap() {
+		this(MINIMUM_CAPACITY);
+	}
+	
+	/**
+	 * Constructs an empty map with room for a number of distinct keys before it has to
+	 * grow.
+	 * @param expectedKeys The number of distinct keys expected
+	 */
+	public DoubleCountMap(int expectedKeys) {
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < 2L * expectedKeys && capacity < MAXIMUM_CAPACITY) {
+			capacity *= 2;
+		}
+		
+		keyBits = new long[capacity];
+		counts = new int[capacity];
+	}
+	
+	/**
+	 * Adds one to the count of a value.
+	 * @param key The value to count
+	 * @throws StatsException if the key is new and the map already holds 2^29
+	 * distinct keys, or if the key's count would pass Integer.MAX_VALUE
+	 */
+	public void increment(double key) {
+		add(key, 1);
+	}
+	
+	/**
+	 * Adds to the count of a value.
+	 * @param key The value to count
+	 * @param count The amount to add, which must be positive
+	 * @throws StatsException if count is not positive, if the key is new and the map
+	 * already holds 2^29 distinct keys, or if the key's count would pass
+	 * Integer.MAX_VALUE
+	 */
+	public void add(double key, int count) {
+		checkFor.nonPositiveWeight(count);
+		
+		long bits = toBits(key);
+		int slot = findSlot(bits);
+		
+		// a count that wrapped around could reach zero and make the slot look empty
+		checkFor.totalTooLarge((long) counts[slot] + count);
+		
+		if (counts[slot] == 0) {
+			checkFor.tooManyDistinctKeys(size + 1L, MAXIMUM_CAPACITY / 2);
+			
+			keyBits[slot] = bits;
+			size++;
+		}
+		
+		counts[slot] += count;
+		
+		if (2 * size > keyBits.length) {
+			grow();
+		}
+	}
+	
+	/**
+	 * Adds every count from another map into this one. The other map is not changed.
+	 * @param other The map to merge in
+	 * @throws StatsException if the merged map would hold more than 2^29 distinct keys,
+	 * or if any merged count would pass Integer.MAX_VALUE
+	 */
+	public void merge(DoubleCountMap other) {
+		for (int slot = 0; slot < other.counts.length; slot++) {
+			if (other.counts[slot] != 0) {
+				add(Double.longBitsToDouble(other.keyBits[slot]), other.counts[slot]);
+			}
+		}
+	}
+	
+	/**
+	 * @param key The value to look up
+	 * @return The number of times the value has been counted, or zero if it has not
+	 */
+	public int get(double key) {
+		return counts[findSlot(toBits(key))];
+	}
+	
+	/**
+	 * @return The number of distinct values counted
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The largest count of any value, or zero if the map is empty
+	 */
+	public int maxCount() {
+		int max = 0;
+		
+		for (int count : counts) {
+			if (count > max) {
+				max = count;
+			}
+		}
+		
+		return max;
+	}
+	
+	/**
+	 * @return Every distinct value counted, in no particular order, lined up with the
+	 * result of counts()
+	 */
+	public double[] keys() {
+		double[] result = new double[size];
+		int next = 0;
+		
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] != 0) {
+				result[next++] = Double.longBitsToDouble(keyBits[slot]);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @return The count of every distinct value, lined up with the result of keys()
+	 */
+	public int[] counts() {
+		int[] result = new int[size];
+		int next = 0;
+		
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] != 0) {
+				result[next++] = counts[slot];
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the values whose count equals a given count.
+	 * @param count The count to look for
+	 * @return The matching values, in ascending order
+	 */
+	public double[] keysWithCount(int count) {
+		int matches = 0;
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] == count) {
+				matches++;
+			}
+		}
+		
+		double[] result = new double[matches];
+		int next = 0;
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] == count) {
+				result[next++] = Double.longBitsToDouble(keyBits[slot]);
+			}
+		}
+		
+		Arrays.sort(result);
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the slot holding a key, or the empty slot where it would go.
+	 * @param bits The key's canonical bit pattern
+	 * @return The slot index
+	 */
+	private int findSlot(long bits) {
+		int mask = keyBits.length - 1;
+		int slot = hash(bits) & mask;
+		
+		while (counts[slot] != 0 && keyBits[slot] != bits) {
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * Doubles the table size and reinserts every key.
+	 */
+	private void grow() {
+		long[] oldKeyBits = keyBits;
+		int[] oldCounts = counts;
+		
+		keyBits = new long[oldKeyBits.length * 2];
+		counts = new int[oldCounts.length * 2];
+		
+		for (int slot = 0; slot < oldCounts.length; slot++) {
+			if (oldCounts[slot] != 0) {
+				int newSlot = findSlot(oldKeyBits[slot]);
+				keyBits[newSlot] = oldKeyBits[slot];
+				counts[newSlot] = oldCounts[slot];
+			}
+		}
+	}
+	
+	/**
+	 * @param key The value
+	 * @return A bit pattern that is the same for all values that count as the same key
+	 */
+	private long toBits(double key) {
+		if (key == 0) {
+			return 0L;
+		}
+		
+		return Double.doubleToLongBits(key);
+	}
+	
+	/**
+	 * Scrambles a bit pattern so that nearby doubles land in unrelated slots.
+	 * @param bits The key's canonical bit pattern
+	 * @return The hash
+	 */
+	private int hash(long bits) {
+		bits ^= bits >>> 33;
+		bits *= 0xff51afd7ed558ccdL;
+		bits ^= bits >>> 33;
+		bits *= 0xc4ceb9fe1a85ec53L;
+		bits ^= bits >>> 33;
+		
+		return (int) bits;
+	}
+}
\ No newline at end of file
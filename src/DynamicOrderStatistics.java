@@ -0,0 +1,426 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Keeps a changing collection of numbers in order, so that the median, any quantile,
+ * or the value of any rank can be read after every insert or removal without sorting
+ * again. Inserting, removing, finding a rank, and selecting a value all take
+ * O(log n) expected time. <p>
+ * The values are kept in a treap: a binary search tree in which each node also has a
+ * random priority, and the tree is kept in heap order by priority as well as in
+ * search order by value. The random priorities keep the tree balanced with high
+ * probability, whatever order the values arrive in. Each node holds one distinct
+ * value with the number of times it occurs, and the total count of its subtree,
+ * which is what lets ranks be counted on the way down. The nodes live in parallel
+ * primitive arrays, and the slots of removed nodes are reused. <p>
+ * Values are ordered like Arrays.sort, so NaN counts as the largest value and -0.0
+ * comes just before 0.0. Ranks start at zero, and quantiles interpolate linearly
+ * between the two closest ranks, just like OrderStatistics.
+ * 
+ * @author Ian Mays
+ */
+public class DynamicOrderStatistics {
+	private static final int MINIMUM_CAPACITY = 16;
+	
+	// node 0 is the empty tree, with a subtree count of zero
+	private static final int EMPTY = 0;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private SplittableRandom random = new SplittableRandom(0x5EED);
+	
+	private double[] values = new double[MINIMUM_CAPACITY];
+	private long[] counts = new long[MINIMUM_CAPACITY];
+	private long[] subtreeCounts = new long[MINIMUM_CAPACITY];
+	private int[] priorities = new int[MINIMUM_CAPACITY];
+	private int[] left = new int[MINIMUM_CAPACITY];
+	private int[] right = new int[MINIMUM_CAPACITY];
+	
+	private int root = EMPTY;
+	private int nextUnused = 1;
+	private int freeList = EMPTY;
+	private boolean removed;
+	
+	/**
+	 * Adds a value.
+	 * @param value The value to add
+	 */
+	public void insert(double value) {
+		root = insert(root, value);
+	}
+	
+	/**
+	 * Adds every value in an array.
+	 * @param values The values to add
+	 */
+	public void insertAll(double[] values) {
+		for (double singleElement : values) {
+			insert(singleElement);
+		}
+	}
+	
+	/**
+	 * Removes one occurrence of a value, if there is one.
+	 * @param value The value to remove
+	 * @return Whether the value was there to remove
+	 */
+	public boolean remove(double value) {
+		removed = false;
+		root = remove(root, value);
+		
+		return removed;
+	}
+	
+	/**
+	 * @return The number of values, counting repeats
+	 */
+	public long size() {
+		return subtreeCounts[root];
+	}
+	
+	/**
+	 * @param value The value to look for
+	 * @return The number of times the value occurs
+	 */
+	public long count(double value) {
+		int node = root;
+		
+		while (node != EMPTY) {
+			int comparison = Double.compare(value, values[node]);
+			
+			if (comparison == 0) {
+				return counts[node];
+			}
+			
+			node = comparison < 0 ? left[node] : right[node];
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * @param value Any value, whether or not it is in the collection
+	 * @return The number of values strictly smaller than it, which is the rank it has
+	 * or would have
+	 */
+	public long rank(double value) {
+		long result = 0;
+		int node = root;
+		
+		while (node != EMPTY) {
+			int comparison = Double.compare(value, values[node]);
+			
+			if (comparison <= 0) {
+				if (comparison == 0) {
+					return result + subtreeCounts[left[node]];
+				}
+				
+				node = left[node];
+			} else {
+				result += subtreeCounts[left[node]] + counts[node];
+				node = right[node];
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the kth smallest value.
+	 * @param k The rank to find, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank
+	 */
+	public double select(long k) {
+		checkFor.rankOutOfRange(size(), k);
+		
+		int node = root;
+		
+		while (true) {
+			long leftCount = subtreeCounts[left[node]];
+			
+			if (k < leftCount) {
+				node = left[node];
+			} else if (k < leftCount + counts[node]) {
+				return values[node];
+			} else {
+				k -= leftCount + counts[node];
+				node = right[node];
+			}
+		}
+	}
+	
+	/**
+	 * @return The smallest value
+	 * @throws StatsException if the collection is empty
+	 */
+	public double getMin() {
+		return select(0);
+	}
+	
+	/**
+	 * @return The largest value
+	 * @throws StatsException if the collection is empty
+	 */
+	public double getMax() {
+		return select(size() - 1);
+	}
+	
+	/**
+	 * Finds the median. If there is an even number of values, the median is the
+	 * average of the middle two values.
+	 * @return The median
+	 * @throws StatsException if the collection is empty
+	 */
+	public double findMedian() {
+		long n = size();
+		checkFor.lengthNotBigEnough(n, 1);
+		
+		if (n % 2 == 1) {
+			return select(n / 2);
+		}
+		
+		return (select(n/2 - 1) + select(n / 2)) / 2;
+	}
+	
+	/**
+	 * Finds the q quantile, interpolating linearly between the two closest ranks.
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the collection is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(double q) {
+		long n = size();
+		checkFor.lengthNotBigEnough(n, 1);
+		checkFor.quantileOutOfRange(q);
+		
+		double position = (n - 1) * q;
+		long lowerRank = (long) Math.floor(position);
+		double fraction = position - lowerRank;
+		double lowerValue = select(lowerRank);
+		
+		if (fraction == 0) {
+			return lowerValue;
+		}
+		
+		return lowerValue + fraction * (select(lowerRank + 1) - lowerValue);
+	}
+	
+	/**
+	 * Copies every value, in ascending order.
+	 * @return The values, with repeats
+	 * @throws StatsException if there are too many values for one array
+	 */
+	public double[] toArray() {
+		checkFor.tooManyValuesToCopy(size());
+		
+		double[] result = new double[(int) size()];
+		fill(root, result, 0);
+		
+		return result;
+	}
+	
+	/**
+	 * Inserts a value into a subtree.
+	 * @param node The root of the subtree
+	 * @param value The value to insert
+	 * @return The new root of the subtree
+	 */
+	private int insert(int node, double value) {
+		if (node == EMPTY) {
+			return newNode(value);
+		}
+		
+		int comparison = Double.compare(value, values[node]);
+		
+		// the recursive call may grow the arrays, so its result is stored only after it
+		// returns, into whichever arrays are current by then
+		if (comparison == 0) {
+			counts[node]++;
+		} else if (comparison < 0) {
+			int child = insert(left[node], value);
+			left[node] = child;
+			
+			if (priorities[left[node]] > priorities[node]) {
+				node = rotateRight(node);
+			}
+		} else {
+			int child = insert(right[node], value);
+			right[node] = child;
+			
+			if (priorities[right[node]] > priorities[node]) {
+				node = rotateLeft(node);
+			}
+		}
+		
+		update(node);
+		
+		return node;
+	}
+	
+	/**
+	 * Removes one occurrence of a value from a subtree, setting the removed flag if it
+	 * was found.
+	 * @param node The root of the subtree
+	 * @param value The value to remove
+	 * @return The new root of the subtree
+	 */
+	private int remove(int node, double value) {
+		if (node == EMPTY) {
+			return EMPTY;
+		}
+		
+		int comparison = Double.compare(value, values[node]);
+		
+		if (comparison < 0) {
+			left[node] = remove(left[node], value);
+		} else if (comparison > 0) {
+			right[node] = remove(right[node], value);
+		} else {
+			removed = true;
+			
+			if (counts[node] > 1) {
+				counts[node]--;
+			} else {
+				int joined = join(left[node], right[node]);
+				freeNode(node);
+				
+				return joined;
+			}
+		}
+		
+		update(node);
+		
+		return node;
+	}
+	
+	/**
+	 * Joins two subtrees where every value in the first is smaller than every value in
+	 * the second, keeping the heap order of the priorities.
+	 * @param a The root of the subtree with the smaller values
+	 * @param b The root of the subtree with the larger values
+	 * @return The root of the joined tree
+	 */
+	private int join(int a, int b) {
+		if (a == EMPTY) {
+			return b;
+		}
+		
+		if (b == EMPTY) {
+			return a;
+		}
+		
+		if (priorities[a] > priorities[b]) {
+			right[a] = join(right[a], b);
+			update(a);
+			
+			return a;
+		}
+		
+		left[b] = join(a, left[b]);
+		update(b);
+		
+		return b;
+	}
+	
+	/**
+	 * Lifts a node's left child above it.
+	 * @param node The node
+	 * @return The new root of the subtree, which was the left child
+	 */
+	private int rotateRight(int node) {
+		int child = left[node];
+		left[node] = right[child];
+		right[child] = node;
+		
+		update(node);
+		
+		return child;
+	}
+	
+	/**
+	 * Lifts a node's right child above it.
+	 * @param node The node
+	 * @return The new root of the subtree, which was the right child
+	 */
+	private int rotateLeft(int node) {
+		int child = right[node];
+		right[node] = left[child];
+		left[child] = node;
+		
+		update(node);
+		
+		return child;
+	}
+	
+	/**
+	 * Recomputes a node's subtree count from its children.
+	 * @param node The node
+	 */
+	private void update(int node) {
+		subtreeCounts[node] = subtreeCounts[left[node]] + counts[node] + subtreeCounts[right[node]];
+	}
+	
+	/**
+	 * Writes the values of a subtree into an array in order.
+	 * @param node The root of the subtree
+	 * @param result The array to write into
+	 * @param start The index to write the first value at
+	 * @return The index after the last value written
+	 */
+	private int fill(int node, double[] result, int start) {
+		if (node == EMPTY) {
+			return start;
+		}
+		
+		start = fill(left[node], result, start);
+		Arrays.fill(result, start, start + (int) counts[node], values[node]);
+		
+		return fill(right[node], result, start + (int) counts[node]);
+	}
+	
+	/**
+	 * Takes a node slot off the free list, or a fresh one, growing the arrays if
+	 * needed.
+	 * @param value The value for the new node
+	 * @return The new node, with no children and a count of one
+	 */
+	private int newNode(double value) {
+		int node;
+		
+		if (freeList != EMPTY) {
+			node = freeList;
+			freeList = left[node];
+		} else {
+			if (nextUnused == values.length) {
+				int capacity = 2 * values.length;
+				values = Arrays.copyOf(values, capacity);
+				counts = Arrays.copyOf(counts, capacity);
+				subtreeCounts = Arrays.copyOf(subtreeCounts, capacity);
+				priorities = Arrays.copyOf(priorities, capacity);
+				left = Arrays.copyOf(left, capacity);
+				right = Arrays.copyOf(right, capacity);
+			}
+			
+			node = nextUnused;
+			nextUnused++;
+		}
+		
+		values[node] = value;
+		counts[node] = 1;
+		subtreeCounts[node] = 1;
+		priorities[node] = random.nextInt();
+		left[node] = EMPTY;
+		right[node] = EMPTY;
+		
+		return node;
+	}
+	
+	/**
+	 * Puts a node slot on the free list, linked through its left child.
+	 * @param node The node to free
+	 */
+	private void freeNode(int node) {
+		left[node] = freeList;
+		freeList = node;
+	}
+}
\ No newline at end of file
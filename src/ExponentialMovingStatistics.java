@@ -0,0 +1,145 @@
+/**
+ * Keeps an exponentially weighted moving mean and variance of a stream of numbers,
+ * so that recent values count more than old ones. Each value's weight halves every
+ * half-life, which is measured either in values (add(value) moves time forward by
+ * one) or in any time unit the caller likes (add(value, timestamp)). Only a handful of
+ * numbers are stored, and each update is O(1). <p>
+ * The usual EWMA update is mean += alpha * (x - mean) with alpha = 1 - 2^(-dt/h),
+ * where dt is the time since the last value and h is the half-life. This class keeps
+ * the total weight of the values seen so far as well, decaying it by 2^(-dt/h) and
+ * adding one for each new value, and uses alpha = 1/totalWeight. Once many half-lives
+ * have passed this is the same as the usual update, but the first few values are not
+ * biased toward the starting point, and values that arrive at the same timestamp
+ * count equally instead of the later ones being ignored. <p>
+ * The variance is the weighted (population) variance of the values around the
+ * weighted mean, kept with West's incremental update, which is Welford's update with
+ * weights.
+ * 
+ * @author Ian Mays
+ */
+public class ExponentialMovingStatistics {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private double halfLife;
+	private long count = 0;
+	private double totalWeight = 0;
+	private double mean = 0;
+	private double weightedSumOfSquaredDeviations = 0;
+	private double lastTimestamp = 0;
+	
+	/**
+	 * Constructs an empty accumulator.
+	 * @param halfLife The time it takes for a value's weight to halve, in values or in
+	 * the units of the timestamps
+	 * @throws StatsException if halfLife is not positive and finite
+	 */
+	public ExponentialMovingStatistics(double halfLife) {
+		checkFor.nonPositiveHalfLife(halfLife);
+		
+		this.halfLife = halfLife;
+	}
+	
+	/**
+	 * Adds a value one time unit after the last one.
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		add(value, count == 0 ? 0 : lastTimestamp + 1);
+	}
+	
+	/**
+	 * Adds a value that was observed at a given time.
+	 * @param value The value to add
+	 * @param timestamp The time of the value, which must not be before the time of the
+	 * last value
+	 * @throws StatsException if timestamp is before the time of the last value, or is
+	 * NaN
+	 */
+	public void add(double value, double timestamp) {
+		if (count == 0) {
+			checkFor.timestampOutOfOrder(timestamp, timestamp);
+			
+			count = 1;
+			totalWeight = 1;
+			mean = value;
+			lastTimestamp = timestamp;
+			return;
+		}
+		
+		checkFor.timestampOutOfOrder(lastTimestamp, timestamp);
+		
+		double decay = Math.pow(2, -(timestamp - lastTimestamp) / halfLife);
+		lastTimestamp = timestamp;
+		
+		count++;
+		totalWeight = decay * totalWeight + 1;
+		
+		double deviation = value - mean;
+		mean += deviation / totalWeight;
+		weightedSumOfSquaredDeviations = decay * weightedSumOfSquaredDeviations + deviation * (value - mean);
+	}
+	
+	/**
+	 * @return The half-life the accumulator was constructed with
+	 */
+	public double getHalfLife() {
+		return halfLife;
+	}
+	
+	/**
+	 * @return The time of the last value
+	 * @throws StatsException if no values have been added
+	 */
+	public double getLastTimestamp() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return lastTimestamp;
+	}
+	
+	/**
+	 * @return The number of values added so far
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return The total weight of the values added so far, which is the number of
+	 * values they are worth; with evenly spaced values it approaches
+	 * 1/(1 - 2^(-1/halfLife))
+	 */
+	public double getEffectiveCount() {
+		return totalWeight;
+	}
+	
+	/**
+	 * Finds the exponentially weighted mean of the values added so far.
+	 * @return The mean
+	 * @throws StatsException if no values have been added
+	 */
+	public double findMean() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return mean;
+	}
+	
+	/**
+	 * Finds the exponentially weighted variance of the values added so far.
+	 * @return The variance
+	 * @throws StatsException if no values have been added
+	 */
+	public double variance() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return Math.max(0, weightedSumOfSquaredDeviations) / totalWeight;
+	}
+	
+	/**
+	 * Finds the exponentially weighted standard deviation of the values added so far.
+	 * @return The standard deviation
+	 * @throws StatsException if no values have been added
+	 */
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,662 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sorts more doubles than fit in memory by spilling sorted runs to temporary files
+ * and merging them. Values are collected in a buffer of a fixed size (2^22 doubles,
+ * or 32 MB, by default); each time it fills, it is sorted with Arrays.sort and
+ * written to its own temporary file as packed little-endian doubles, the same format
+ * MappedDoubleColumn reads. <p>
+ * The sorted values are read back in one sequential pass, through iterator or
+ * stream, by merging every run at once with a min-heap of runs ordered by each run's
+ * next value. Each run is read through a small buffer, so the merge uses memory in
+ * proportion to the number of runs rather than the number of values. If there are
+ * more than 64 runs, groups of 64 are first merged into longer runs, and the longer
+ * runs replace them, until few enough are left. <p>
+ * The median, quantiles, and mode are found exactly from the merged stream, stopping
+ * as soon as the answer is known. Values are ordered like Arrays.sort, so -0.0 comes
+ * before 0.0 and NaN values come last. <p>
+ * Values should not be added while the sorted values are being read. Closing the
+ * sorter deletes its temporary files, after which it cannot be used.
+ * 
+ * @author Ian Mays
+ */
+public class ExternalSorter implements Closeable {
+	/**
+	 * The number of doubles sorted in memory before they are spilled to a run, used by
+	 * the no-argument constructor.
+	 */
+	public static final int DEFAULT_RUN_SIZE = 1 << 22;
+	
+	private static final int MERGE_WIDTH = 64;
+	private static final int IO_BUFFER_SIZE = 1 << 13;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private Path directory;
+	private double[] buffer;
+	private int buffered = 0;
+	private ArrayList<Path> runFiles = new ArrayList<>();
+	private ArrayList<Long> runLengths = new ArrayList<>();
+	private long size = 0;
+	private boolean open = true;
+	
+	/**
+	 * Constructs an empty sorter that spills runs of the default size to the system's
+	 * temporary directory.
+	 */
+	public ExternalSorter() {
+		this(DEFAULT_RUN_SIZE);
+	}
+	
+	/**
+	 * Constructs an empty sorter that spills runs to the system's temporary directory.
+	 * @param runSize The number of doubles sorted in memory before they are spilled
+	 * @throws StatsException if runSize is not positive
+	 */
+	public ExternalSorter(int runSize) {
+		this(runSize, null);
+	}
+	
+	/**
+	 * Constructs an empty sorter.
+	 * @param runSize The number of doubles sorted in memory before they are spilled
+	 * @param directory The directory for the temporary run files, or null for the
+	 * system's temporary directory
+	 * @throws StatsException if runSize is not positive
+	 */
+	public ExternalSorter(int runSize, Path directory) {
+		checkFor.nonPositiveSize(runSize);
+		
+		this.directory = directory;
+		buffer = new double[runSize];
+	}
+	
+	/**
+	 * Adds a value, spilling a run if the buffer is full.
+	 * @param value The value to add
+	 * @throws IOException if a run cannot be written
+	 */
+	public void add(double value) throws IOException {
+		checkFor.sorterClosed(open);
+		
+		buffer[buffered] = value;
+		buffered++;
+		size++;
+		
+		if (buffered == buffer.length) {
+			spill();
+		}
+	}
+	
+	/**
+	 * Adds every value in an array.
+	 * @param values The values to add
+	 * @throws IOException if a run cannot be written
+	 */
+	public void addAll(double[] values) throws IOException {
+		addAll(DoubleBuffer.wrap(values));
+	}
+	
+	/**
+	 * Adds the remaining values of a buffer, without moving the buffer's position.
+	 * @param values The values to add
+	 * @throws IOException if a run cannot be written
+	 */
+	public void addAll(DoubleBuffer values) throws IOException {
+		checkFor.sorterClosed(open);
+		
+		DoubleBuffer source = values.duplicate();
+		
+		while (source.hasRemaining()) {
+			int count = Math.min(source.remaining(), buffer.length - buffered);
+			source.get(buffer, buffered, count);
+			buffered += count;
+			size += count;
+			
+			if (buffered == buffer.length) {
+				spill();
+			}
+		}
+	}
+	
+	/**
+	 * Adds every value of a memory-mapped column, one chunk at a time.
+	 * @param column The column of values
+	 * @throws IOException if a run cannot be written
+	 */
+	public void addAll(MappedDoubleColumn column) throws IOException {
+		for (int i = 0; i < column.getChunkCount(); i++) {
+			addAll(column.getChunk(i));
+		}
+	}
+	
+	/**
+	 * Adds every value of a column stored off the heap, one chunk at a time.
+	 * @param column The column of values
+	 * @throws IOException if a run cannot be written
+	 */
+	public void addAll(OffHeapDoubleColumn column) throws IOException {
+		for (int i = 0; i < column.getChunkCount(); i++) {
+			addAll(column.getChunk(i));
+		}
+	}
+	
+	/**
+	 * @return The number of values added
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * @return The number of runs that have been spilled to temporary files
+	 */
+	public int getRunCount() {
+		return runFiles.size();
+	}
+	
+	/**
+	 * Merges the runs into one sorted sequence. If an I/O error happens while the
+	 * values are being read, the iterator throws an UncheckedIOException. The run
+	 * files stay open until the last value has been read; to stop reading early, use
+	 * stream in a try-with-resources block instead.
+	 * @return An iterator over every value, in ascending order
+	 * @throws IOException if the runs cannot be opened or merged
+	 */
+	public PrimitiveIterator.OfDouble iterator() throws IOException {
+		return iteratorOver(openMerge());
+	}
+	
+	/**
+	 * Merges the runs into one sorted, sequential stream. Closing the stream closes
+	 * the run files, even if not every value has been read.
+	 * @return A stream of every value, in ascending order
+	 * @throws IOException if the runs cannot be opened or merged
+	 */
+	public DoubleStream stream() throws IOException {
+		Merge merge = openMerge();
+		int characteristics = Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL;
+		
+		return StreamSupport.doubleStream(Spliterators.spliterator(iteratorOver(merge), size, characteristics), false).onClose(() -> {
+			try {
+				merge.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+	
+	/**
+	 * @param merge An open merge of the runs
+	 * @return An iterator that reads the merge
+	 */
+	private PrimitiveIterator.OfDouble iteratorOver(Merge merge) {
+		return new PrimitiveIterator.OfDouble() {
+			@Override
+			public boolean hasNext() {
+				return merge.hasNext();
+			}
+			
+			@Override
+			public double nextDouble() {
+				if (!merge.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				
+				try {
+					return merge.next();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Finds the median of the values exactly. If there is an even number of values,
+	 * the median is the average of the middle two values.
+	 * @return The median
+	 * @throws StatsException if no values have been added
+	 * @throws IOException if the runs cannot be read
+	 */
+	public double findMedian() throws IOException {
+		return quantile(0.5);
+	}
+	
+	/**
+	 * Finds a quantile of the values exactly, interpolating linearly between the two
+	 * closest ranks like OrderStatistics does.
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if no values have been added, or if q is not between 0
+	 * and 1
+	 * @throws IOException if the runs cannot be read
+	 */
+	public double quantile(double q) throws IOException {
+		return quantiles(new double[] {q})[0];
+	}
+	
+	/**
+	 * Finds several quantiles of the values exactly, in a single pass over the merged
+	 * values that stops at the highest rank needed.
+	 * @param qs The quantiles, each between 0 and 1, in any order
+	 * @return The value of each quantile, in the same order as qs
+	 * @throws StatsException if no values have been added, or if any quantile is not
+	 * between 0 and 1
+	 * @throws IOException if the runs cannot be read
+	 */
+	public double[] quantiles(double[] qs) throws IOException {
+		checkFor.lengthNotBigEnough(size, 1);
+		for (double q : qs) {
+			checkFor.quantileOutOfRange(q);
+		}
+		
+		long[] ranks = new long[2 * qs.length];
+		for (int i = 0; i < qs.length; i++) {
+			long lowerRank = (long) Math.floor((size - 1) * qs[i]);
+			ranks[2 * i] = lowerRank;
+			ranks[2 * i + 1] = Math.min(lowerRank + 1, size - 1);
+		}
+		
+		long[] sortedRanks = ranks.clone();
+		Arrays.sort(sortedRanks);
+		double[] rankValues = new double[sortedRanks.length];
+		
+		try (Merge merge = openMerge()) {
+			long rank = 0;
+			double value = merge.next();
+			
+			for (int i = 0; i < sortedRanks.length; i++) {
+				while (rank < sortedRanks[i]) {
+					value = merge.next();
+					rank++;
+				}
+				
+				rankValues[i] = value;
+			}
+		}
+		
+		double[] result = new double[qs.length];
+		for (int i = 0; i < qs.length; i++) {
+			double lower = rankValues[Arrays.binarySearch(sortedRanks, ranks[2 * i])];
+			double upper = rankValues[Arrays.binarySearch(sortedRanks, ranks[2 * i + 1])];
+			double fraction = (size - 1) * qs[i] - ranks[2 * i];
+			
+			result[i] = fraction == 0 ? lower : lower + fraction * (upper - lower);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the mode of the values, i.e. the most commonly occurring value, from the
+	 * lengths of the runs of equal values in the merged sequence. Like
+	 * NumericalMeasures.findMode, a tie between two or more values returns the
+	 * smallest one, 0.0 and -0.0 count as the same value, and so do all NaN values.
+	 * @return The mode
+	 * @throws StatsException if no values have been added
+	 * @throws IOException if the runs cannot be read
+	 */
+	public double findMode() throws IOException {
+		checkFor.lengthNotBigEnough(size, 1);
+		
+		double mode = Double.NaN;
+		long modeCount = 0;
+		
+		try (Merge merge = openMerge()) {
+			double current = merge.next();
+			long currentCount = 1;
+			
+			while (true) {
+				boolean more = merge.hasNext();
+				double value = more ? merge.next() : 0;
+				
+				if (more && (value == current || Double.isNaN(value) && Double.isNaN(current))) {
+					currentCount++;
+					continue;
+				}
+				
+				if (currentCount > modeCount) {
+					// -0.0 sorts first among the zeros, but the mode is reported as 0.0
+					mode = current == 0 ? 0.0 : current;
+					modeCount = currentCount;
+				}
+				
+				if (!more) {
+					return mode;
+				}
+				
+				current = value;
+				currentCount = 1;
+			}
+		}
+	}
+	
+	/**
+	 * Deletes every temporary run file. The sorter cannot be used afterwards.
+	 * @throws IOException if a file cannot be deleted
+	 */
+	@Override
+	public void close() throws IOException {
+		open = false;
+		buffer = new double[0];
+		buffered = 0;
+		size = 0;
+		
+		for (Path file : runFiles) {
+			Files.deleteIfExists(file);
+		}
+		
+		runFiles.clear();
+		runLengths.clear();
+	}
+	
+	/**
+	 * Sorts the buffered values and writes them to a new run file.
+	 * @throws IOException if the file cannot be written
+	 */
+	private void spill() throws IOException {
+		Arrays.sort(buffer, 0, buffered);
+		
+		Path file = newRunFile();
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			RunWriter writer = new RunWriter(channel);
+			
+			for (int i = 0; i < buffered; i++) {
+				writer.write(buffer[i]);
+			}
+			
+			writer.flush();
+		}
+		
+		runFiles.add(file);
+		runLengths.add((long) buffered);
+		buffered = 0;
+	}
+	
+	/**
+	 * Merges groups of runs into longer runs until there are few enough to merge at
+	 * once, then opens a merge of every run and the buffered values.
+	 * @return The merge, positioned at the smallest value
+	 * @throws IOException if the runs cannot be opened or merged
+	 */
+	private Merge openMerge() throws IOException {
+		checkFor.sorterClosed(open);
+		
+		while (runFiles.size() > MERGE_WIDTH) {
+			ArrayList<Path> mergedFiles = new ArrayList<>();
+			ArrayList<Long> mergedLengths = new ArrayList<>();
+			
+			for (int start = 0; start < runFiles.size(); start += MERGE_WIDTH) {
+				int end = Math.min(start + MERGE_WIDTH, runFiles.size());
+				Path file = newRunFile();
+				long length = 0;
+				
+				try (Merge merge = new Merge(runFiles.subList(start, end), runLengths.subList(start, end), null, 0);
+						FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+					RunWriter writer = new RunWriter(channel);
+					
+					while (merge.hasNext()) {
+						writer.write(merge.next());
+						length++;
+					}
+					
+					writer.flush();
+				}
+				
+				mergedFiles.add(file);
+				mergedLengths.add(length);
+			}
+			
+			for (Path file : runFiles) {
+				Files.delete(file);
+			}
+			
+			runFiles = mergedFiles;
+			runLengths = mergedLengths;
+		}
+		
+		Arrays.sort(buffer, 0, buffered);
+		
+		return new Merge(runFiles, runLengths, buffer, buffered);
+	}
+	
+	/**
+	 * @return A new, empty temporary file for a run
+	 * @throws IOException if the file cannot be created
+	 */
+	private Path newRunFile() throws IOException {
+		if (directory == null) {
+			return Files.createTempFile("run", ".bin");
+		}
+		
+		return Files.createTempFile(directory, "run", ".bin");
+	}
+	
+	/**
+	 * Writes doubles to a channel through a buffer, as packed little-endian doubles.
+	 */
+	private static class RunWriter {
+		private FileChannel channel;
+		private ByteBuffer bytes = ByteBuffer.allocateDirect(8 * IO_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		
+		RunWriter(FileChannel channel) {
+			this.channel = channel;
+		}
+		
+		void write(double value) throws IOException {
+			if (!bytes.hasRemaining()) {
+				flush();
+			}
+			
+			bytes.putDouble(value);
+		}
+		
+		void flush() throws IOException {
+			bytes.flip();
+			
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			
+			bytes.clear();
+		}
+	}
+	
+	/**
+	 * A k-way merge of sorted runs: the run files, read through small buffers, plus
+	 * one sorted run held in memory. The heap holds the index of every run that still
+	 * has values, ordered by the run's next value; the run in memory has the last
+	 * index.
+	 */
+	private static class Merge implements Closeable {
+		private FileChannel[] channels;
+		private ByteBuffer[] buffers;
+		private long[] unread;
+		private double[] memoryRun;
+		private int memoryLength;
+		private int memoryNext = 0;
+		private double[] heads;
+		private int[] heap;
+		private int heapSize = 0;
+		
+		Merge(List<Path> files, List<Long> lengths, double[] memoryRun, int memoryLength) throws IOException {
+			int runs = files.size();
+			channels = new FileChannel[runs];
+			buffers = new ByteBuffer[runs];
+			unread = new long[runs];
+			this.memoryRun = memoryRun;
+			this.memoryLength = memoryLength;
+			heads = new double[runs + 1];
+			heap = new int[runs + 1];
+			
+			try {
+				for (int run = 0; run < runs; run++) {
+					channels[run] = FileChannel.open(files.get(run), StandardOpenOption.READ);
+					buffers[run] = ByteBuffer.allocateDirect(8 * IO_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+					buffers[run].limit(0);
+					unread[run] = lengths.get(run);
+					
+					if (advance(run)) {
+						push(run);
+					}
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+			
+			if (advance(runs)) {
+				push(runs);
+			}
+		}
+		
+		boolean hasNext() {
+			return heapSize > 0;
+		}
+		
+		/**
+		 * @return The smallest value not yet returned
+		 * @throws IOException if a run cannot be read
+		 */
+		double next() throws IOException {
+			int run = heap[0];
+			double result = heads[run];
+			
+			if (advance(run)) {
+				siftDown(0);
+			} else {
+				heapSize--;
+				heap[0] = heap[heapSize];
+				siftDown(0);
+				
+				if (heapSize == 0) {
+					close();
+				}
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Moves a run's head to its next value, refilling its buffer if needed.
+		 * @param run The index of the run
+		 * @return Whether the run had another value
+		 * @throws IOException if the run cannot be read
+		 */
+		private boolean advance(int run) throws IOException {
+			if (run == channels.length) {
+				if (memoryNext == memoryLength) {
+					return false;
+				}
+				
+				heads[run] = memoryRun[memoryNext];
+				memoryNext++;
+				
+				return true;
+			}
+			
+			ByteBuffer bytes = buffers[run];
+			
+			if (!bytes.hasRemaining()) {
+				if (unread[run] == 0) {
+					return false;
+				}
+				
+				int count = (int) Math.min(IO_BUFFER_SIZE, unread[run]);
+				bytes.clear();
+				bytes.limit(8 * count);
+				
+				while (bytes.hasRemaining()) {
+					if (channels[run].read(bytes) < 0) {
+						throw new IOException("Run file ended early");
+					}
+				}
+				
+				bytes.flip();
+				unread[run] -= count;
+			}
+			
+			heads[run] = bytes.getDouble();
+			
+			return true;
+		}
+		
+		private void push(int run) {
+			int position = heapSize;
+			heapSize++;
+			
+			while (position > 0 && Double.compare(heads[heap[(position - 1) / 2]], heads[run]) > 0) {
+				heap[position] = heap[(position - 1) / 2];
+				position = (position - 1) / 2;
+			}
+			
+			heap[position] = run;
+		}
+		
+		private void siftDown(int position) {
+			if (heapSize == 0) {
+				return;
+			}
+			
+			int run = heap[position];
+			
+			while (2 * position + 1 < heapSize) {
+				int child = 2 * position + 1;
+				
+				if (child + 1 < heapSize && Double.compare(heads[heap[child + 1]], heads[heap[child]]) < 0) {
+					child++;
+				}
+				
+				if (Double.compare(heads[heap[child]], heads[run]) >= 0) {
+					break;
+				}
+				
+				heap[position] = heap[child];
+				position = child;
+			}
+			
+			heap[position] = run;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			IOException failure = null;
+			
+			for (int run = 0; run < channels.length; run++) {
+				if (channels[run] != null) {
+					try {
+						channels[run].close();
+					} catch (IOException e) {
+						failure = e;
+					}
+					
+					channels[run] = null;
+				}
+			}
+			
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+import java.math.BigInteger;
+
+/**
+ * Computes exact factorials quickly. The factorials up to 256! are computed once,
+ * the first time any of them is needed, and shared by every instance; since the
+ * table is built while its holder class is initialized, the JVM guarantees that every
+ * thread sees it fully built without any locking. <p>
+ * Larger factorials use the prime swing algorithm. The swing of n is
+ * n! / (floor(n/2)!)^2, so n! = (floor(n/2)!)^2 * swing(n), and the smaller factorial
+ * is found the same way until it is in the table. The swing itself is never built
+ * from n! (that would defeat the point); instead, each prime p up to n divides it
+ * exactly once for each k with floor(n/p^k) odd, so the swing is the product of a
+ * prime power no larger than n for each prime. Those prime powers are multiplied with
+ * a ProductTree, which splits large products across threads, and the squaring at
+ * each step uses BigInteger's dedicated squaring. All of this keeps the multiplies
+ * balanced, unlike multiplying 2 * 3 * ... * n one at a time, whose cost grows with
+ * the square of the length of the answer.
+ * 
+ * @author Ian Mays
+ */
+public class FactorialCalculator {
+	/**
+	 * The largest n whose factorial is kept in the shared table.
+	 */
+	public static final int CACHED_LIMIT = 256;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private ProductTree productTree;
+	
+	/**
+	 * Constructs a new FactorialCalculator that multiplies on the common ForkJoinPool.
+	 */
+	public FactorialCalculator() {
+		this(new ProductTree());
+	}
+	
+	/**
+	 * Constructs a new FactorialCalculator.
+	 * @param productTree The product tree used to multiply the prime powers in each
+	 * swing
+	 */
+	public FactorialCalculator(ProductTree productTree) {
+		this.productTree = productTree;
+	}
+	
+	/**
+	 * Computes the factorial of a number.
+	 * @param n The integer to find the factorial of
+	 * @return The factorial
+	 * @throws StatsException if n is negative
+	 */
+	public BigInteger factorial(int n) {
+		checkFor.negativeItems(n);
+		
+		if (n <= CACHED_LIMIT) {
+			return Table.FACTORIALS[n];
+		}
+		
+		return primeSwingFactorial(n, new PrimeSieve(n).primes());
+	}
+	
+	/**
+	 * @param n The integer to find the factorial of
+	 * @param primes Every prime up to at least n, in ascending order
+	 * @return The factorial
+	 */
+	private BigInteger primeSwingFactorial(int n, int[] primes) {
+		if (n <= CACHED_LIMIT) {
+			return Table.FACTORIALS[n];
+		}
+		
+		BigInteger half = primeSwingFactorial(n / 2, primes);
+		
+		return half.multiply(half).multiply(swing(n, primes));
+	}
+	
+	/**
+	 * Computes n! / (floor(n/2)!)^2 from its prime factorization.
+	 * @param n The integer to find the swing of
+	 * @param primes Every prime up to at least n, in ascending order
+	 * @return The swing
+	 */
+	private BigInteger swing(int n, int[] primes) {
+		long[] primePowers = new long[primes.length];
+		int count = 0;
+		
+		for (int p : primes) {
+			if (p > n) {
+				break;
+			}
+			
+			// p^k for each k with floor(n/p^k) odd; the product never exceeds n
+			long power = 1;
+			long quotient = n;
+			while ((quotient /= p) > 0) {
+				if ((quotient & 1) == 1) {
+					power *= p;
+				}
+			}
+			
+			if (power > 1) {
+				primePowers[count++] = power;
+			}
+		}
+		
+		return productTree.product(primePowers, 0, count);
+	}
+	
+	/**
+	 * Holds the table of small factorials, which the JVM builds the first time the
+	 * class is used.
+	 */
+	private static class Table {
+		static final BigInteger[] FACTORIALS = new BigInteger[CACHED_LIMIT + 1];
+		
+		static {
+			FACTORIALS[0] = BigInteger.ONE;
+			
+			for (int i = 1; i <= CACHED_LIMIT; i++) {
+				FACTORIALS[i] = FACTORIALS[i - 1].multiply(BigInteger.valueOf(i));
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+/**
+ * Accumulates the count, mean, variance, minimum, and maximum of the values for each
+ * key in a stream of (key, value) pairs, in a single pass. Keys are longs, so int keys
+ * such as host or endpoint ids can be used directly; StringGroupedMoments handles
+ * String keys. <p>
+ * Each group is a row in a set of parallel primitive arrays, updated in place with
+ * Welford's method, and the keys are found with a hash table of longs using open
+ * addressing (linear probing), like DoubleCountMap. Nothing is boxed, so adding a pair
+ * takes expected O(1) time and allocates nothing unless the tables have to grow. <p>
+ * Two accumulators can be merged with Chan's formula, just like StreamingMoments, so
+ * the stream can be split between threads that each keep their own GroupedMoments.
+ * ParallelMeasures.groupedMoments does exactly that for arrays.
+ * 
+ * @author Ian Mays
+ */
+public class GroupedMoments {
+	private static final int MINIMUM_CAPACITY = 16;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	// hash table from key to group index plus one, where zero means an empty slot
+	private long[] tableKeys = new long[2 * MINIMUM_CAPACITY];
+	private int[] tableGroups = new int[2 * MINIMUM_CAPACITY];
+	
+	// one row per group, in the order the keys were first seen
+	private long[] keys = new long[MINIMUM_CAPACITY];
+	private long[] counts = new long[MINIMUM_CAPACITY];
+	private double[] means = new double[MINIMUM_CAPACITY];
+	private double[] sumsOfSquaredDeviations = new double[MINIMUM_CAPACITY];
+	private double[] mins = new double[MINIMUM_CAPACITY];
+	private double[] maxes = new double[MINIMUM_CAPACITY];
+	private int size = 0;
+	
+	/**
+	 * Adds a value to the group for a key, creating the group if needed.
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void add(long key, double value) {
+		int group = groupOf(key);
+		long count = ++counts[group];
+		
+		double deviation = value - means[group];
+		means[group] += deviation / count;
+		sumsOfSquaredDeviations[group] += deviation * (value - means[group]);
+		mins[group] = Math.min(mins[group], value);
+		maxes[group] = Math.max(maxes[group], value);
+	}
+	
+	/**
+	 * Adds each value to the group for the key at the same index.
+	 * @param keys The keys
+	 * @param values The values
+	 * @throws StatsException if the arrays are not the same length
+	 */
+	public void addAll(long[] keys, double[] values) {
+		checkFor.arraysNotEqualLength(keys.length, values.length);
+		
+		for (int i = 0; i < keys.length; i++) {
+			add(keys[i], values[i]);
+		}
+	}
+	
+	/**
+	 * Adds each value to the group for the key at the same index.
+	 * @param keys The keys
+	 * @param values The values
+	 * @throws StatsException if the arrays are not the same length
+	 */
+	public void addAll(int[] keys, double[] values) {
+		checkFor.arraysNotEqualLength(keys.length, values.length);
+		
+		for (int i = 0; i < keys.length; i++) {
+			add(keys[i], values[i]);
+		}
+	}
+	
+	/**
+	 * Merges every group of another accumulator into the group with the same key in
+	 * this one. The other accumulator is not changed.
+	 * @param other The accumulator to merge in
+	 */
+	public void merge(GroupedMoments other) {
+		for (int otherGroup = 0; otherGroup < other.size; otherGroup++) {
+			mergeGroup(groupOf(other.keys[otherGroup]), other, otherGroup);
+		}
+	}
+	
+	/**
+	 * @return The number of distinct keys
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return Every key, in the order each was first added
+	 */
+	public long[] keys() {
+		return Arrays.copyOf(keys, size);
+	}
+	
+	/**
+	 * @param key The key
+	 * @return Whether any values have been added for the key
+	 */
+	public boolean containsKey(long key) {
+		return tableGroups[findSlot(key)] != 0;
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The number of values added for the key, or zero if there are none
+	 */
+	public long getCount(long key) {
+		int group = tableGroups[findSlot(key)] - 1;
+		
+		return group < 0 ? 0 : counts[group];
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The mean of the values added for the key
+	 * @throws StatsException if no values have been added for the key
+	 */
+	public double findMean(long key) {
+		return get(key).findMean();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The (sample) variance of the values added for the key
+	 * @throws StatsException if fewer than two values have been added for the key
+	 */
+	public double variance(long key) {
+		return get(key).variance();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The standard deviation of the values added for the key
+	 * @throws StatsException if fewer than two values have been added for the key
+	 */
+	public double standardDeviation(long key) {
+		return get(key).standardDeviation();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return A copy of the moments of the values added for the key
+	 * @throws StatsException if no values have been added for the key
+	 */
+	public StreamingMoments get(long key) {
+		int group = tableGroups[findSlot(key)] - 1;
+		checkFor.keyNotFound(group >= 0, Long.toString(key));
+		
+		return new StreamingMoments(counts[group], means[group], sumsOfSquaredDeviations[group], mins[group], maxes[group]);
+	}
+	
+	/**
+	 * Merges one group of another accumulator into one group of this accumulator with
+	 * Chan's formula. Used by StringGroupedMoments, whose keys differ between
+	 * accumulators.
+	 * @param group The group in this accumulator
+	 * @param other The other accumulator
+	 * @param otherGroup The group in the other accumulator
+	 */
+	void mergeGroup(int group, GroupedMoments other, int otherGroup) {
+		long otherCount = other.counts[otherGroup];
+		if (otherCount == 0) {
+			return;
+		}
+		
+		long count = counts[group];
+		long totalCount = count + otherCount;
+		double delta = other.means[otherGroup] - means[group];
+		
+		means[group] += delta * otherCount / totalCount;
+		sumsOfSquaredDeviations[group] += other.sumsOfSquaredDeviations[otherGroup] + delta * delta * ((double) count * otherCount / totalCount);
+		counts[group] = totalCount;
+		mins[group] = Math.min(mins[group], other.mins[otherGroup]);
+		maxes[group] = Math.max(maxes[group], other.maxes[otherGroup]);
+	}
+	
+	/**
+	 * Finds the group for a key without creating one.
+	 * @param key The key
+	 * @return The index of the group, or -1 if the key has no group
+	 */
+	int findGroup(long key) {
+		return tableGroups[findSlot(key)] - 1;
+	}
+	
+	/**
+	 * Finds the group for a key, creating an empty one if there is none yet.
+	 * @param key The key
+	 * @return The index of the group
+	 */
+	int groupOf(long key) {
+		int slot = findSlot(key);
+		
+		if (tableGroups[slot] != 0) {
+			return tableGroups[slot] - 1;
+		}
+		
+		if (size == keys.length) {
+			int capacity = 2 * size;
+			keys = Arrays.copyOf(keys, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			means = Arrays.copyOf(means, capacity);
+			sumsOfSquaredDeviations = Arrays.copyOf(sumsOfSquaredDeviations, capacity);
+			mins = Arrays.copyOf(mins, capacity);
+			maxes = Arrays.copyOf(maxes, capacity);
+		}
+		
+		int group = size;
+		size++;
+		
+		keys[group] = key;
+		mins[group] = Double.POSITIVE_INFINITY;
+		maxes[group] = Double.NEGATIVE_INFINITY;
+		tableKeys[slot] = key;
+		tableGroups[slot] = group + 1;
+		
+		if (2 * size > tableKeys.length) {
+			growTable();
+		}
+		
+		return group;
+	}
+	
+	/**
+	 * Finds the slot holding a key, or the empty slot where it would go.
+	 * @param key The key
+	 * @return The slot index
+	 */
+	private int findSlot(long key) {
+		int mask = tableKeys.length - 1;
+		int slot = hash(key) & mask;
+		
+		while (tableGroups[slot] != 0 && tableKeys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * Doubles the hash table size and reinserts every key.
+	 */
+	private void growTable() {
+		tableKeys = new long[tableKeys.length * 2];
+		tableGroups = new int[tableGroups.length * 2];
+		
+		for (int group = 0; group < size; group++) {
+			int slot = findSlot(keys[group]);
+			tableKeys[slot] = keys[group];
+			tableGroups[slot] = group + 1;
+		}
+	}
+	
+	/**
+	 * Scrambles a key so that consecutive keys land in unrelated slots.
+	 * @param key The key
+	 * @return The hash
+	 */
+	private int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		
+		return (int) key;
+	}
+}
\ No newline at end of file
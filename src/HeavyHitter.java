@@ -0,0 +1,54 @@
+/**
+ * One of the most frequent values found by HeavyHitters, with its estimated count and
+ * the most that estimate can be too high by. Instances cannot be changed once they
+ * are made.
+ * 
+ * @author Ian Mays
+ */
+public class HeavyHitter {
+	private final double value;
+	private final long count;
+	private final long error;
+	
+	/**
+	 * Constructs a new HeavyHitter.
+	 * @param value The value
+	 * @param count The estimated number of times the value occurred
+	 * @param error The largest amount the estimate can be too high by
+	 */
+	public HeavyHitter(double value, long count, long error) {
+		this.value = value;
+		this.count = count;
+		this.error = error;
+	}
+	
+	/**
+	 * @return The value
+	 */
+	public double getValue() {
+		return value;
+	}
+	
+	/**
+	 * @return The estimated number of times the value occurred, which is never less
+	 * than the true number
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return The largest amount the estimated count can be too high by
+	 */
+	public long getError() {
+		return error;
+	}
+	
+	/**
+	 * @return The number of times the value is certain to have occurred, which is the
+	 * estimated count minus the error
+	 */
+	public long getGuaranteedCount() {
+		return count - error;
+	}
+}
\ No newline at end of file
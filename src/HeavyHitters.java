@@ -0,0 +1,417 @@
+import java.util.Arrays;
+
+/**
+ * Finds the most frequent values of a stream in fixed memory, using the Space-Saving
+ * algorithm. For streams too large to keep in memory, this stands in for
+ * NumericalMeasures.findModes. <p>
+ * A fixed number of counters are kept, each watching one value. A value that is
+ * already watched has its counter incremented. Otherwise, if every counter is in use,
+ * the counter with the smallest count is handed over to the new value, keeping its
+ * count (plus one) and remembering that count as the new value's possible error.
+ * With m counters and n values added: <p>
+ * 1. Every count is an overestimate, by at most its error, and every error is at
+ * most n/m. <p>
+ * 2. Every value that occurs more than n/m times is guaranteed to be watched. <p>
+ * The counters are kept in a min-heap ordered by count, so the smallest one is found
+ * in O(1) and each update costs O(log m). The watched values are found with an
+ * open-addressing hash table of their bit patterns, sized once for m counters, so
+ * nothing is allocated after construction. Like DoubleCountMap, 0.0 and -0.0 are the
+ * same value, and all NaN values are counted together. <p>
+ * Two summaries can be merged: a value missing from one summary is given that
+ * summary's smallest count as both its count and its error, the counts and errors are
+ * added, and the m largest counts are kept. The merged summary has the same
+ * guarantees for the combined stream.
+ * 
+ * @author Ian Mays
+ */
+public class HeavyHitters {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private double[] values;
+	private long[] counts;
+	private long[] errors;
+	private int size = 0;
+	private long totalCount = 0;
+	
+	// min-heap of counter indices ordered by count, and where each counter sits in it
+	private int[] heap;
+	private int[] heapPosition;
+	
+	// hash table from a value's bit pattern to its counter index plus one, where zero
+	// means an empty slot
+	private long[] tableBits;
+	private int[] tableCounters;
+	
+	/**
+	 * Constructs an empty summary.
+	 * @param capacity The number of counters, which bounds both the memory used and the
+	 * error of each count by n/capacity
+	 * @throws StatsException if capacity is not positive
+	 */
+	public HeavyHitters(int capacity) {
+		checkFor.nonPositiveSize(capacity);
+		
+		values = new double[capacity];
+		counts = new long[capacity];
+		errors = new long[capacity];
+		heap = new int[capacity];
+		heapPosition = new int[capacity];
+		
+		int tableSize = 4;
+		while (tableSize < 2L * capacity) {
+			tableSize *= 2;
+		}
+		
+		tableBits = new long[tableSize];
+		tableCounters = new int[tableSize];
+	}
+	
+	/**
+	 * Adds one occurrence of a value.
+	 * @param value The value
+	 */
+	public void add(double value) {
+		add(value, 1);
+	}
+	
+	/**
+	 * Adds several occurrences of a value at once.
+	 * @param value The value
+	 * @param weight The number of occurrences
+	 * @throws StatsException if weight is not positive
+	 */
+	public void add(double value, long weight) {
+		checkFor.nonPositiveWeight(weight);
+		
+		totalCount += weight;
+		
+		long bits = toBits(value);
+		int slot = findSlot(bits);
+		
+		if (tableCounters[slot] != 0) {
+			int counter = tableCounters[slot] - 1;
+			counts[counter] += weight;
+			siftDown(heapPosition[counter]);
+			return;
+		}
+		
+		if (size < values.length) {
+			int counter = size;
+			size++;
+			
+			values[counter] = Double.longBitsToDouble(bits);
+			counts[counter] = weight;
+			errors[counter] = 0;
+			insert(slot, bits, counter);
+			
+			heap[counter] = counter;
+			heapPosition[counter] = counter;
+			siftUp(counter);
+			return;
+		}
+		
+		int counter = heap[0];
+		remove(toBits(values[counter]));
+		
+		values[counter] = Double.longBitsToDouble(bits);
+		errors[counter] = counts[counter];
+		counts[counter] += weight;
+		insert(findSlot(bits), bits, counter);
+		
+		siftDown(0);
+	}
+	
+	/**
+	 * Adds every value in an array.
+	 * @param values The values
+	 */
+	public void addAll(double[] values) {
+		for (double singleElement : values) {
+			add(singleElement);
+		}
+	}
+	
+	/**
+	 * Merges another summary into this one. The other summary is not changed, and this
+	 * summary keeps its own number of counters.
+	 * @param other The summary to merge in
+	 */
+	public void merge(HeavyHitters other) {
+		long thisFloor = minimumCount();
+		long otherFloor = other.minimumCount();
+		
+		double[] mergedValues = new double[size + other.size];
+		long[] mergedCounts = new long[mergedValues.length];
+		long[] mergedErrors = new long[mergedValues.length];
+		int mergedSize = 0;
+		
+		for (int counter = 0; counter < size; counter++) {
+			int otherSlot = other.findSlot(toBits(values[counter]));
+			int otherCounter = other.tableCounters[otherSlot] - 1;
+			
+			mergedValues[mergedSize] = values[counter];
+			mergedCounts[mergedSize] = counts[counter] + (otherCounter < 0 ? otherFloor : other.counts[otherCounter]);
+			mergedErrors[mergedSize] = errors[counter] + (otherCounter < 0 ? otherFloor : other.errors[otherCounter]);
+			mergedSize++;
+		}
+		
+		for (int otherCounter = 0; otherCounter < other.size; otherCounter++) {
+			if (tableCounters[findSlot(toBits(other.values[otherCounter]))] == 0) {
+				mergedValues[mergedSize] = other.values[otherCounter];
+				mergedCounts[mergedSize] = other.counts[otherCounter] + thisFloor;
+				mergedErrors[mergedSize] = other.errors[otherCounter] + thisFloor;
+				mergedSize++;
+			}
+		}
+		
+		Integer[] order = new Integer[mergedSize];
+		for (int i = 0; i < mergedSize; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(mergedCounts[b], mergedCounts[a]));
+		
+		long mergedTotal = totalCount + other.totalCount;
+		clear();
+		totalCount = mergedTotal;
+		
+		for (int i = 0; i < Math.min(mergedSize, values.length); i++) {
+			int counter = size;
+			size++;
+			
+			long bits = toBits(mergedValues[order[i]]);
+			values[counter] = mergedValues[order[i]];
+			counts[counter] = mergedCounts[order[i]];
+			errors[counter] = mergedErrors[order[i]];
+			insert(findSlot(bits), bits, counter);
+			
+			heap[counter] = counter;
+			heapPosition[counter] = counter;
+			siftUp(counter);
+		}
+	}
+	
+	/**
+	 * Finds the watched values with the largest estimated counts.
+	 * @param k The number of values to return
+	 * @return Up to k values, from the largest estimated count to the smallest, with
+	 * ties broken by value in ascending order
+	 * @throws StatsException if k is not positive
+	 */
+	public HeavyHitter[] topK(int k) {
+		checkFor.nonPositiveSize(k);
+		
+		Integer[] order = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a]) : Double.compare(values[a], values[b]));
+		
+		HeavyHitter[] result = new HeavyHitter[Math.min(k, size)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = new HeavyHitter(values[order[i]], counts[order[i]], errors[order[i]]);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Estimates the mode of the stream: the watched value with the largest estimated
+	 * count. If some value makes up more than 1/capacity of the stream, the true mode
+	 * is guaranteed to be watched, but ties within the error bounds may be broken
+	 * either way.
+	 * @return The estimated mode
+	 * @throws StatsException if no values have been added
+	 */
+	public double findMode() {
+		checkFor.lengthNotBigEnough(size, 1);
+		
+		return topK(1)[0].getValue();
+	}
+	
+	/**
+	 * @param value The value
+	 * @return An upper bound on the number of times the value occurred: its count if
+	 * it is watched, or else the smallest count of any counter
+	 */
+	public long estimateCount(double value) {
+		int counter = tableCounters[findSlot(toBits(value))] - 1;
+		
+		return counter < 0 ? minimumCount() : counts[counter];
+	}
+	
+	/**
+	 * @return The number of values added so far, counting each weight in full
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+	
+	/**
+	 * @return The number of counters
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+	
+	/**
+	 * @return The number of values currently watched
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return The smallest count of any counter if every counter is in use, or else
+	 * zero, since an unwatched value then cannot have occurred at all
+	 */
+	private long minimumCount() {
+		return size < values.length ? 0 : counts[heap[0]];
+	}
+	
+	/**
+	 * Empties every counter and the hash table.
+	 */
+	private void clear() {
+		Arrays.fill(tableCounters, 0);
+		size = 0;
+		totalCount = 0;
+	}
+	
+	/**
+	 * Finds the slot holding a bit pattern, or the empty slot where it would go.
+	 * @param bits The value's canonical bit pattern
+	 * @return The slot index
+	 */
+	private int findSlot(long bits) {
+		int mask = tableBits.length - 1;
+		int slot = hash(bits) & mask;
+		
+		while (tableCounters[slot] != 0 && tableBits[slot] != bits) {
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * @param slot The empty slot found for the bit pattern
+	 * @param bits The value's canonical bit pattern
+	 * @param counter The counter watching the value
+	 */
+	private void insert(int slot, long bits, int counter) {
+		tableBits[slot] = bits;
+		tableCounters[slot] = counter + 1;
+	}
+	
+	/**
+	 * Removes a bit pattern from the hash table. The entries after it in the same run
+	 * are shifted back to fill the gap, so that lookups never stop early at a hole.
+	 * @param bits The value's canonical bit pattern, which must be in the table
+	 */
+	private void remove(long bits) {
+		int mask = tableBits.length - 1;
+		int gap = findSlot(bits);
+		int slot = gap;
+		
+		while (true) {
+			slot = (slot + 1) & mask;
+			
+			if (tableCounters[slot] == 0) {
+				break;
+			}
+			
+			// an entry may only move back if its home slot is not between the gap and it
+			int home = hash(tableBits[slot]) & mask;
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				tableBits[gap] = tableBits[slot];
+				tableCounters[gap] = tableCounters[slot];
+				gap = slot;
+			}
+		}
+		
+		tableCounters[gap] = 0;
+	}
+	
+	/**
+	 * Moves the counter at a heap position up until its parent's count is no larger.
+	 * @param position The starting position in the heap
+	 */
+	private void siftUp(int position) {
+		int counter = heap[position];
+		
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			
+			if (counts[heap[parent]] <= counts[counter]) {
+				break;
+			}
+			
+			place(position, heap[parent]);
+			position = parent;
+		}
+		
+		place(position, counter);
+	}
+	
+	/**
+	 * Moves the counter at a heap position down until neither child's count is
+	 * smaller.
+	 * @param position The starting position in the heap
+	 */
+	private void siftDown(int position) {
+		int counter = heap[position];
+		
+		while (2 * position + 1 < size) {
+			int child = 2 * position + 1;
+			
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			
+			if (counts[heap[child]] >= counts[counter]) {
+				break;
+			}
+			
+			place(position, heap[child]);
+			position = child;
+		}
+		
+		place(position, counter);
+	}
+	
+	/**
+	 * @param position The position in the heap
+	 * @param counter The counter to store there
+	 */
+	private void place(int position, int counter) {
+		heap[position] = counter;
+		heapPosition[counter] = position;
+	}
+	
+	/**
+	 * @param value The value
+	 * @return A bit pattern that is the same for all values that count as the same
+	 */
+	private long toBits(double value) {
+		if (value == 0) {
+			return 0L;
+		}
+		
+		return Double.doubleToLongBits(value);
+	}
+	
+	/**
+	 * Scrambles a bit pattern so that nearby doubles land in unrelated slots.
+	 * @param bits The value's canonical bit pattern
+	 * @return The hash
+	 */
+	private int hash(long bits) {
+		bits ^= bits >>> 33;
+		bits *= 0xff51afd7ed558ccdL;
+		bits ^= bits >>> 33;
+		bits *= 0xc4ceb9fe1a85ec53L;
+		bits ^= bits >>> 33;
+		
+		return (int) bits;
+	}
+}
\ No newline at end of file
@@ -6,12 +6,13 @@
  * @author Ian Mays
  */
 public class HypergeometricDistribution {
-	private CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+	private LogCombinatorics logCombinatorics = new LogCombinatorics();
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
 	
 	/**
 	 * Calculates the probability of getting exactly a certain number of items from
-	 * the desired subset.
+	 * the desired subset. The numbers of combinations are divided as logarithms, so
+	 * they never overflow.
 	 * @param bigN The total number of items in the set
 	 * @param n The total number of items to draw
 	 * @param r The number of items in the subset
@@ -30,11 +31,11 @@ public class HypergeometricDistribution {
 		checkFor.tooManyItems(bigN, n);
 		checkFor.tooManyItems(n, y);
 		
-		double choicesA = comsAndPerms.combinations(r, y).doubleValue();
-		double choicesB = comsAndPerms.combinations(bigN-r, n-y).doubleValue();
-		double totalChoices = comsAndPerms.combinations(bigN, n).doubleValue();
+		double logChoicesA = logCombinatorics.logChoose(r, y);
+		double logChoicesB = logCombinatorics.logChoose(bigN-r, n-y);
+		double logTotalChoices = logCombinatorics.logChoose(bigN, n);
 		
-		return choicesA * choicesB / totalChoices;
+		return Math.exp(logChoicesA + logChoicesB - logTotalChoices);
 	}
 	
 	/**
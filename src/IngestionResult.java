@@ -0,0 +1,78 @@
+/**
+ * The result of reading columns with DelimitedFileReader: the columns themselves (if
+ * they were stored rather than streamed) and counts of the rows that were read and
+ * skipped. Instances cannot be changed once they are made.
+ * 
+ * @author Ian Mays
+ */
+public class IngestionResult {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private final double[][] columns;
+	private final long rowsRead;
+	private final long shortRowsSkipped;
+	private final long unparseableRowsSkipped;
+	
+	/**
+	 * Constructs a new IngestionResult.
+	 * @param columns The columns that were read, or null if they were streamed
+	 * @param rowsRead The number of non-blank data rows in the file
+	 * @param shortRowsSkipped The number of rows skipped for having too few fields
+	 * @param unparseableRowsSkipped The number of rows skipped because a selected
+	 * field was not a number
+	 */
+	public IngestionResult(double[][] columns, long rowsRead, long shortRowsSkipped, long unparseableRowsSkipped) {
+		this.columns = columns;
+		this.rowsRead = rowsRead;
+		this.shortRowsSkipped = shortRowsSkipped;
+		this.unparseableRowsSkipped = unparseableRowsSkipped;
+	}
+	
+	/**
+	 * @param i The position of the column in the selection, starting at zero
+	 * @return The values of that column from every accepted row. The array belongs to
+	 * the caller and is not copied.
+	 * @throws StatsException if the columns were streamed instead of stored
+	 */
+	public double[] getColumn(int i) {
+		checkFor.columnsNotStored(columns != null);
+		
+		return columns[i];
+	}
+	
+	/**
+	 * @return The number of non-blank data rows in the file, not counting the header
+	 */
+	public long getRowsRead() {
+		return rowsRead;
+	}
+	
+	/**
+	 * @return The number of rows whose values were accepted
+	 */
+	public long getRowsAccepted() {
+		return rowsRead - getRowsSkipped();
+	}
+	
+	/**
+	 * @return The total number of rows skipped for any reason
+	 */
+	public long getRowsSkipped() {
+		return shortRowsSkipped + unparseableRowsSkipped;
+	}
+	
+	/**
+	 * @return The number of rows skipped for having too few fields to reach a selected
+	 * column
+	 */
+	public long getShortRowsSkipped() {
+		return shortRowsSkipped;
+	}
+	
+	/**
+	 * @return The number of rows skipped because a selected field was not a number
+	 */
+	public long getUnparseableRowsSkipped() {
+		return unparseableRowsSkipped;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+import java.math.BigInteger;
+
+/**
+ * Computes exact numbers of combinations, permutations, and multinomial coefficients
+ * from their prime factorizations, without ever building or dividing the factorials
+ * they are made of. By Legendre's formula, the prime p divides n! exactly
+ * floor(n/p) + floor(n/p^2) + floor(n/p^3) + ... times, so the exponent of p in
+ * n! / (r! (n-r)!) is that sum for n minus the sums for r and n-r, and likewise for
+ * the other ratios of factorials. The primes come from a PrimeSieve built for each
+ * call, as FactorialCalculator does, so nothing is kept between calls and one
+ * instance can be shared between threads. <p>
+ * The prime powers are multiplied one bit of the exponents at a time, starting from
+ * the highest: the running product is squared, then multiplied by the product of
+ * every prime whose exponent has that bit set. Each of those products is built with a
+ * ProductTree, which multiplies large ones in parallel, and the powers of 2 are
+ * applied with a single shift at the end. This is much faster than dividing
+ * factorials once n reaches the thousands, and it never holds a number larger than
+ * the answer.
+ * 
+ * @author Ian Mays
+ */
+public class LegendreCombinatorics {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private ProductTree productTree;
+	
+	/**
+	 * Constructs a new LegendreCombinatorics that multiplies on the common
+	 * ForkJoinPool.
+	 */
+	public LegendreCombinatorics() {
+		this(new ProductTree());
+	}
+	
+	/**
+	 * Constructs a new LegendreCombinatorics.
+	 * @param productTree The product tree used to multiply the primes
+	 */
+	public LegendreCombinatorics(ProductTree productTree) {
+		this.productTree = productTree;
+	}
+	
+	/**
+	 * Finds the number of combinations of r objects that can be taken from a set of n
+	 * objects.
+	 * @param n The number of objects in the set
+	 * @param r The number of objects to choose from the set
+	 * @return C(n, r) = n! / (r! (n-r)!)
+	 * @throws StatsException if either n or r are negative, or if r > n
+	 */
+	public BigInteger combinations(int n, int r) {
+		checkFor.negativeItems(n);
+		checkFor.negativeItems(r);
+		checkFor.tooManyItems(n, r);
+		
+		return factorialQuotient(n, new int[] {r, n - r});
+	}
+	
+	/**
+	 * Finds the number of permutations of r objects that can be taken from a set of n
+	 * objects.
+	 * @param n The number of objects in the set
+	 * @param r The number of objects to choose from the set
+	 * @return P(n, r) = n! / (n-r)!
+	 * @throws StatsException if either n or r are negative, or if r > n
+	 */
+	public BigInteger permutations(int n, int r) {
+		checkFor.negativeItems(n);
+		checkFor.negativeItems(r);
+		checkFor.tooManyItems(n, r);
+		
+		return factorialQuotient(n, new int[] {n - r});
+	}
+	
+	/**
+	 * Finds the multinomial coefficient: the number of ways to split a set into groups
+	 * of the given sizes, where the order within each group does not matter.
+	 * @param counts The size of each group
+	 * @return (k1 + k2 + ...)! / (k1! k2! ...)
+	 * @throws StatsException if any count is negative, or if the counts add up to more
+	 * than Integer.MAX_VALUE
+	 */
+	public BigInteger multinomial(int... counts) {
+		long total = 0;
+		for (int count : counts) {
+			checkFor.negativeItems(count);
+			total += count;
+		}
+		
+		checkFor.totalTooLarge(total);
+		
+		return factorialQuotient((int) total, counts);
+	}
+	
+	/**
+	 * Finds n! divided by the factorial of every count.
+	 * @param n The number to take the factorial of
+	 * @param counts The numbers whose factorials divide n!, which add up to at most n
+	 * @return The quotient
+	 */
+	private BigInteger factorialQuotient(int n, int[] counts) {
+		int[] candidates = new PrimeSieve(n).primes();
+		int[] factors = new int[candidates.length];
+		int[] exponents = new int[candidates.length];
+		int factorCount = 0;
+		int exponentOfTwo = 0;
+		
+		for (int p : candidates) {
+			int exponent = legendreExponent(n, p);
+			for (int count : counts) {
+				exponent -= legendreExponent(count, p);
+			}
+			
+			if (p == 2) {
+				exponentOfTwo = exponent;
+			} else if (exponent > 0) {
+				factors[factorCount] = p;
+				exponents[factorCount] = exponent;
+				factorCount++;
+			}
+		}
+		
+		return primePowerProduct(factors, exponents, factorCount).shiftLeft(exponentOfTwo);
+	}
+	
+	/**
+	 * Multiplies p^e over a list of primes, one bit of the exponents at a time.
+	 * @param factors The primes
+	 * @param exponents The exponent of each prime, all positive
+	 * @param count The number of primes
+	 * @return The product of the prime powers
+	 */
+	private BigInteger primePowerProduct(int[] factors, int[] exponents, int count) {
+		int maxExponent = 0;
+		for (int i = 0; i < count; i++) {
+			maxExponent = Math.max(maxExponent, exponents[i]);
+		}
+		
+		BigInteger result = BigInteger.ONE;
+		long[] selected = new long[count];
+		
+		for (int bit = 31 - Integer.numberOfLeadingZeros(maxExponent); bit >= 0; bit--) {
+			int selectedCount = 0;
+			for (int i = 0; i < count; i++) {
+				if ((exponents[i] >>> bit & 1) != 0) {
+					selected[selectedCount++] = factors[i];
+				}
+			}
+			
+			result = result.multiply(result).multiply(productTree.product(selected, 0, selectedCount));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @param n The number to take the factorial of
+	 * @param p A prime
+	 * @return The number of times p divides n!
+	 */
+	private int legendreExponent(int n, int p) {
+		int exponent = 0;
+		
+		for (int quotient = n / p; quotient > 0; quotient /= p) {
+			exponent += quotient;
+		}
+		
+		return exponent;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,369 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only column of doubles backed by a memory-mapped file of packed little-endian
+ * doubles, so files far larger than the heap can be analyzed without being parsed or
+ * copied. A single mapping is limited to 2 GB, so the file is mapped in chunks (of
+ * 2^27 doubles, or 1 GB, by default), and every computation walks the chunks in
+ * order. Each chunk is exposed as a DoubleBuffer, which the DoubleBuffer versions of
+ * NumericalMeasures and StreamingMoments accept directly. <p>
+ * The mean, variance, minimum, and maximum are found in one pass with
+ * StreamingMoments. Quantiles can be estimated in one pass with a QuantileSketch, or
+ * found exactly in three: the sketch picks a narrow range of values that should
+ * contain the answer, a counting pass checks that it does (widening the range and
+ * counting again if not), and a last pass copies out only the values inside the
+ * range, which are then searched with OrderStatistics.
+ * 
+ * @author Ian Mays
+ */
+public class MappedDoubleColumn implements Closeable {
+	/**
+	 * The number of doubles in each mapped chunk used by the one-argument constructor.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 27;
+	
+	// fraction of n added on each side of the sketch's estimate when bracketing a rank
+	private static final double BRACKET_MARGIN = 0.02;
+	// factor the margin is multiplied by each time the range misses the answer
+	private static final double BRACKET_GROWTH = 4;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private OrderStatistics orderStatistics = new OrderStatistics();
+	
+	private FileChannel channel;
+	private DoubleBuffer[] chunks;
+	private int chunkSize;
+	private long size;
+	
+	/**
+	 * Maps a file of packed little-endian doubles.
+	 * @param path The file to map
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws StatsException if the file's length is not a multiple of 8 bytes
+	 */
+	public MappedDoubleColumn(Path path) throws IOException {
+		this(path, DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Maps a file of packed little-endian doubles, using chunks of a given size.
+	 * @param path The file to map
+	 * @param chunkSize The number of doubles in each mapped chunk
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws StatsException if chunkSize is not positive, or if the file's length is
+	 * not a multiple of 8 bytes
+	 */
+	public MappedDoubleColumn(Path path, int chunkSize) throws IOException {
+		checkFor.nonPositiveSize(chunkSize);
+		checkFor.chunkTooLarge(chunkSize);
+		
+		this.chunkSize = chunkSize;
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		
+		// the caller never gets the column if this fails, so the file is closed here
+		try {
+			long byteLength = channel.size();
+			checkFor.partialDoubleInFile(byteLength);
+			size = byteLength / 8;
+			
+			chunks = new DoubleBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+			
+			for (int i = 0; i < chunks.length; i++) {
+				long start = (long) i * chunkSize;
+				long doubles = Math.min(chunkSize, size - start);
+				
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, 8 * start, 8 * doubles).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+			}
+		} catch (IOException | RuntimeException e) {
+			try {
+				channel.close();
+			} catch (IOException closeFailure) {
+				e.addSuppressed(closeFailure);
+			}
+			
+			throw e;
+		}
+	}
+	
+	/**
+	 * @return The number of doubles in the column
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * @param index The index of the double, starting at zero
+	 * @return The double at that index
+	 * @throws StatsException if the index is out of range
+	 */
+	public double get(long index) {
+		checkFor.rankOutOfRange(size, index);
+		
+		return chunks[(int) (index / chunkSize)].get((int) (index % chunkSize));
+	}
+	
+	/**
+	 * @return The number of mapped chunks
+	 */
+	public int getChunkCount() {
+		return chunks.length;
+	}
+	
+	/**
+	 * @param i The index of the chunk
+	 * @return A read-only view of the chunk, positioned at its start
+	 */
+	public DoubleBuffer getChunk(int i) {
+		return chunks[i].asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Finds the count, mean, variance, minimum, and maximum of the column in a single
+	 * pass.
+	 * @return The accumulated moments
+	 */
+	public StreamingMoments moments() {
+		StreamingMoments moments = new StreamingMoments();
+		
+		for (DoubleBuffer chunk : chunks) {
+			moments.addAll(chunk);
+		}
+		
+		return moments;
+	}
+	
+	/**
+	 * Finds the mean (average) of the column.
+	 * @return The mean
+	 * @throws StatsException if the column is empty
+	 */
+	public double findMean() {
+		return moments().findMean();
+	}
+	
+	/**
+	 * Finds the (sample) variance of the column.
+	 * @return The variance
+	 * @throws StatsException if the column holds fewer than two values
+	 */
+	public double variance() {
+		return moments().variance();
+	}
+	
+	/**
+	 * Finds the standard deviation of the column.
+	 * @return The standard deviation
+	 * @throws StatsException if the column holds fewer than two values
+	 */
+	public double standardDeviation() {
+		return moments().standardDeviation();
+	}
+	
+	/**
+	 * @return The smallest value in the column
+	 * @throws StatsException if the column is empty
+	 */
+	public double getMin() {
+		return moments().getMin();
+	}
+	
+	/**
+	 * @return The largest value in the column
+	 * @throws StatsException if the column is empty
+	 */
+	public double getMax() {
+		return moments().getMax();
+	}
+	
+	/**
+	 * Feeds every value of the column into a new QuantileSketch.
+	 * @return The sketch
+	 */
+	public QuantileSketch sketch() {
+		QuantileSketch sketch = new QuantileSketch();
+		
+		for (DoubleBuffer chunk : chunks) {
+			for (int i = 0; i < chunk.limit(); i++) {
+				sketch.add(chunk.get(i));
+			}
+		}
+		
+		return sketch;
+	}
+	
+	/**
+	 * Estimates a quantile of the column in a single pass, in bounded memory.
+	 * @param q The quantile, between 0 and 1
+	 * @return The estimated q quantile
+	 * @throws StatsException if the column is empty, or if q is not between 0 and 1
+	 */
+	public double approximateQuantile(double q) {
+		return sketch().quantile(q);
+	}
+	
+	/**
+	 * Finds the median of the column exactly.
+	 * @return The median
+	 * @throws StatsException if the column is empty
+	 */
+	public double findMedian() {
+		return quantile(0.5);
+	}
+	
+	/**
+	 * Finds a quantile of the column exactly, interpolating linearly between the two
+	 * closest ranks like OrderStatistics does. Only the values strictly between the
+	 * ends of the bracketing range are copied onto the heap, and only if the answer
+	 * is among them; a rank that falls on a run of values equal to either end is
+	 * answered with that end directly, so heavily tied columns need no copying.
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the column is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(double q) {
+		checkFor.lengthNotBigEnough(size, 1);
+		checkFor.quantileOutOfRange(q);
+		
+		double position = (size - 1) * q;
+		long lowerRank = (long) Math.floor(position);
+		double fraction = position - lowerRank;
+		// the upper rank only matters if there is something to interpolate
+		long upperRank = fraction == 0 ? lowerRank : lowerRank + 1;
+		
+		QuantileSketch sketch = sketch();
+		
+		// NaN values sort last, and the sketch does not see them
+		long nanCount = size - sketch.getCount();
+		if (upperRank >= size - nanCount) {
+			return Double.NaN;
+		}
+		
+		double lowMargin = BRACKET_MARGIN;
+		double highMargin = BRACKET_MARGIN;
+		double low = bracketEnd(sketch, (double) lowerRank / size - lowMargin, Double.NEGATIVE_INFINITY);
+		double high = bracketEnd(sketch, (double) upperRank / size + highMargin, Double.POSITIVE_INFINITY);
+		
+		while (true) {
+			long below = 0;
+			long atLow = 0;
+			long inside = 0;
+			long atHigh = 0;
+			
+			for (DoubleBuffer chunk : chunks) {
+				for (int i = 0; i < chunk.limit(); i++) {
+					double value = chunk.get(i);
+					
+					if (value < low) {
+						below++;
+					} else if (value == low) {
+						atLow++;
+					} else if (value < high) {
+						inside++;
+					} else if (value == high) {
+						atHigh++;
+					}
+				}
+			}
+			
+			// a missed bracket is widened a step at a time, and only opened all the way
+			// once the margin covers the whole column
+			if (below > lowerRank) {
+				lowMargin *= BRACKET_GROWTH;
+				low = bracketEnd(sketch, (double) lowerRank / size - lowMargin, Double.NEGATIVE_INFINITY);
+			} else if (below + atLow + inside + atHigh <= upperRank) {
+				highMargin *= BRACKET_GROWTH;
+				high = bracketEnd(sketch, (double) upperRank / size + highMargin, Double.POSITIVE_INFINITY);
+			} else {
+				long insideStart = below + atLow;
+				long insideEnd = insideStart + inside;
+				boolean lowerInside = lowerRank >= insideStart && lowerRank < insideEnd;
+				boolean upperInside = upperRank >= insideStart && upperRank < insideEnd;
+				
+				double lowerValue = lowerRank < insideStart ? low : high;
+				double upperValue = upperRank < insideStart ? low : high;
+				
+				if (lowerInside || upperInside) {
+					checkFor.tooManyValuesToCopy(inside);
+					
+					double[] candidates = collectRange(low, high, (int) inside);
+					int[] ranks = {(int) (Math.max(lowerRank, insideStart) - insideStart), (int) (Math.min(upperRank, insideEnd - 1) - insideStart)};
+					double[] selected = orderStatistics.selectAllInPlace(candidates, 0, candidates.length, ranks);
+					
+					if (lowerInside) {
+						lowerValue = selected[0];
+					}
+					if (upperInside) {
+						upperValue = selected[1];
+					}
+				}
+				
+				if (fraction == 0) {
+					return lowerValue;
+				}
+				
+				return lowerValue + fraction * (upperValue - lowerValue);
+			}
+		}
+	}
+	
+	/**
+	 * Drops the column's references to its mappings and closes the file. The
+	 * mappings themselves are released once they are garbage collected.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		chunks = new DoubleBuffer[0];
+		size = 0;
+		channel.close();
+	}
+	
+	/**
+	 * Finds one end of the range that should hold a rank.
+	 * @param sketch The sketch of the column
+	 * @param q The quantile to estimate, which may be outside of [0, 1]
+	 * @param fallback The infinity to use once q covers the whole column, or if the
+	 * sketch's estimate is NaN (which it is when it interpolates next to an infinity)
+	 * @return The estimated q quantile, or fallback
+	 */
+	private double bracketEnd(QuantileSketch sketch, double q, double fallback) {
+		if (q <= 0 || q >= 1) {
+			return fallback;
+		}
+		
+		double estimate = sketch.quantile(q);
+		
+		return Double.isNaN(estimate) ? fallback : estimate;
+	}
+	
+	/**
+	 * Copies every value strictly between low and high into a new array.
+	 * @param low The lower bound of the range, which is left out
+	 * @param high The upper bound of the range, which is left out
+	 * @param count The number of values in the range
+	 * @return The values in the range, in file order
+	 */
+	private double[] collectRange(double low, double high, int count) {
+		double[] result = new double[count];
+		int next = 0;
+		
+		for (DoubleBuffer chunk : chunks) {
+			for (int i = 0; i < chunk.limit(); i++) {
+				double value = chunk.get(i);
+				
+				if (value > low && value < high) {
+					result[next++] = value;
+				}
+			}
+		}
+		
+		return result;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+/**
+ * The result of finding the modes of a list of numbers: every value that is tied for
+ * most common, along with how many times each of them occurs. Instances cannot be
+ * changed once they are made.
+ * 
+ * @author Ian Mays
+ */
+public class ModeResult {
+	private final double[] modes;
+	private final int frequency;
+	
+	/**
+	 * Constructs a new ModeResult.
+	 * @param modes The modes, in ascending order
+	 * @param frequency The number of times each mode occurs
+	 */
+	public ModeResult(double[] modes, int frequency) {
+		this.modes = modes.clone();
+		this.frequency = frequency;
+	}
+	
+	/**
+	 * @return Every mode, in ascending order. There is more than one if the data is
+	 * multimodal.
+	 */
+	public double[] getModes() {
+		return modes.clone();
+	}
+	
+	/**
+	 * @return The smallest mode, which is what NumericalMeasures.findMode returns
+	 */
+	public double getSmallestMode() {
+		return modes[0];
+	}
+	
+	/**
+	 * @return The number of times each mode occurs
+	 */
+	public int getFrequency() {
+		return frequency;
+	}
+	
+	/**
+	 * @return Whether there is more than one mode
+	 */
+	public boolean isMultimodal() {
+		return modes.length > 1;
+	}
+}
\ No newline at end of file
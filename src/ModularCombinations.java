@@ -0,0 +1,237 @@
+import java.math.BigInteger;
+
+/**
+ * Computes numbers of combinations, permutations, and factorials modulo a prime, for
+ * code that needs the residues of many of them (hashing, counting modulo a prime)
+ * and has no use for the exact BigInteger values. <p>
+ * The constructor builds tables of n! mod p and of their inverses, 1/n! mod p, for
+ * every n below the table size; the inverses are found with a single modular
+ * exponentiation for the last entry and one multiply for each entry below it, since
+ * 1/(n-1)! = n * (1/n!). After that, C(n, r) = n! * (1/r!) * (1/(n-r)!) mod p takes
+ * two multiplies for any n below the table size. Both tables are int arrays, so a
+ * table of a million entries takes 8 MB. <p>
+ * Larger n use Lucas's theorem: C(n, r) mod p is the product of C(n_i, r_i) mod p
+ * over the base-p digits n_i and r_i of n and r, so with the full table (as large as
+ * p) any n up to Long.MAX_VALUE takes one lookup per digit. If the table is smaller
+ * than p, a digit that falls beyond it is multiplied out directly, in time
+ * proportional to the smaller of r_i and n_i - r_i. <p>
+ * The modulus must be a prime no larger than Integer.MAX_VALUE, so that the product
+ * of two residues fits in a long.
+ * 
+ * @author Ian Mays
+ */
+public class ModularCombinations {
+	/**
+	 * The largest number of entries in each table, used by the constructor that does
+	 * not take a table size.
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private long modulus;
+	private int tableSize;
+	private int[] factorials;
+	private int[] inverseFactorials;
+	
+	/**
+	 * Constructs a new ModularCombinations with tables as large as the modulus or
+	 * DEFAULT_TABLE_SIZE, whichever is smaller.
+	 * @param modulus A prime
+	 * @throws StatsException if modulus is not a prime no larger than
+	 * Integer.MAX_VALUE
+	 */
+	public ModularCombinations(int modulus) {
+		this(modulus, DEFAULT_TABLE_SIZE);
+	}
+	
+	/**
+	 * Constructs a new ModularCombinations.
+	 * @param modulus A prime
+	 * @param tableSize The number of factorials to keep, which is cut down to the
+	 * modulus if it is larger, since every factorial from p! on is 0 mod p
+	 * @throws StatsException if modulus is not a prime no larger than
+	 * Integer.MAX_VALUE, or if tableSize is not positive
+	 */
+	public ModularCombinations(int modulus, int tableSize) {
+		checkFor.invalidModulus(modulus > 1 && BigInteger.valueOf(modulus).isProbablePrime(64), modulus);
+		checkFor.nonPositiveSize(tableSize);
+		
+		this.modulus = modulus;
+		this.tableSize = Math.min(tableSize, modulus);
+		
+		factorials = new int[this.tableSize];
+		inverseFactorials = new int[this.tableSize];
+		
+		factorials[0] = 1;
+		for (int i = 1; i < this.tableSize; i++) {
+			factorials[i] = (int) (factorials[i - 1] * (long) i % modulus);
+		}
+		
+		inverseFactorials[this.tableSize - 1] = (int) inverse(factorials[this.tableSize - 1]);
+		for (int i = this.tableSize - 1; i > 0; i--) {
+			inverseFactorials[i - 1] = (int) (inverseFactorials[i] * (long) i % modulus);
+		}
+	}
+	
+	/**
+	 * @return The prime that every answer is reduced by
+	 */
+	public long getModulus() {
+		return modulus;
+	}
+	
+	/**
+	 * @return The number of factorials kept in each table
+	 */
+	public int getTableSize() {
+		return tableSize;
+	}
+	
+	/**
+	 * Finds n! mod p.
+	 * @param n The integer to find the factorial of
+	 * @return n! mod p, which is 0 once n is at least p
+	 * @throws StatsException if n is negative
+	 */
+	public long factorial(long n) {
+		checkFor.countOutOfRange(Long.MAX_VALUE, n);
+		
+		if (n >= modulus) {
+			return 0;
+		}
+		
+		if (n < tableSize) {
+			return factorials[(int) n];
+		}
+		
+		long result = factorials[tableSize - 1];
+		for (long i = tableSize; i <= n; i++) {
+			result = result * i % modulus;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the number of combinations of r objects that can be taken from a set of n
+	 * objects, mod p.
+	 * @param n The number of objects in the set
+	 * @param r The number of objects to choose from the set
+	 * @return C(n, r) mod p
+	 * @throws StatsException if either n or r are negative, or if r > n
+	 */
+	public long combinations(long n, long r) {
+		checkFor.countOutOfRange(Long.MAX_VALUE, n);
+		checkFor.countOutOfRange(n, r);
+		
+		if (n < tableSize) {
+			return fromTable((int) n, (int) r);
+		}
+		
+		// Lucas's theorem, one base-p digit at a time
+		long result = 1;
+		while (r > 0 && result != 0) {
+			long nDigit = n % modulus;
+			long rDigit = r % modulus;
+			
+			if (rDigit > nDigit) {
+				return 0;
+			}
+			
+			result = result * smallCombinations((int) nDigit, (int) rDigit) % modulus;
+			n /= modulus;
+			r /= modulus;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the number of permutations of r objects that can be taken from a set of n
+	 * objects, mod p.
+	 * @param n The number of objects in the set
+	 * @param r The number of objects to choose from the set
+	 * @return P(n, r) = n * (n-1) * ... * (n-r+1) mod p
+	 * @throws StatsException if either n or r are negative, or if r > n
+	 */
+	public long permutations(long n, long r) {
+		checkFor.countOutOfRange(Long.MAX_VALUE, n);
+		checkFor.countOutOfRange(n, r);
+		
+		// the factors are r consecutive integers, which skip every multiple of p only
+		// if they all have the same quotient by p; then they are congruent to
+		// m, m-1, ..., m-r+1 with m = n mod p
+		long m = n % modulus;
+		if (m < r) {
+			return 0;
+		}
+		
+		if (m < tableSize) {
+			return factorials[(int) m] * (long) inverseFactorials[(int) (m - r)] % modulus;
+		}
+		
+		long result = 1;
+		for (long i = m - r + 1; i <= m; i++) {
+			result = result * i % modulus;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @param n The number of objects in the set, below the table size
+	 * @param r The number of objects to choose, between 0 and n
+	 * @return C(n, r) mod p from the tables
+	 */
+	private long fromTable(int n, int r) {
+		return factorials[n] * (long) inverseFactorials[r] % modulus * inverseFactorials[n - r] % modulus;
+	}
+	
+	/**
+	 * Finds C(n, r) mod p for n below p, from the tables if n is in them and otherwise
+	 * as (n-k+1) * ... * n / k! with k = min(r, n-r).
+	 * @param n The number of objects in the set, below p
+	 * @param r The number of objects to choose, between 0 and n
+	 * @return C(n, r) mod p
+	 */
+	private long smallCombinations(int n, int r) {
+		if (n < tableSize) {
+			return fromTable(n, r);
+		}
+		
+		int k = Math.min(r, n - r);
+		long numerator = 1;
+		for (int i = n - k + 1; i <= n; i++) {
+			numerator = numerator * i % modulus;
+		}
+		
+		long inverseDenominator;
+		if (k < tableSize) {
+			inverseDenominator = inverseFactorials[k];
+		} else {
+			inverseDenominator = inverse(factorial(k));
+		}
+		
+		return numerator * inverseDenominator % modulus;
+	}
+	
+	/**
+	 * Finds the inverse of a by Fermat's little theorem, as a^(p-2) mod p.
+	 * @param a A residue that is not 0 mod p
+	 * @return The b with a * b = 1 mod p
+	 */
+	private long inverse(long a) {
+		long result = 1;
+		long base = a % modulus;
+		
+		for (long exponent = modulus - 2; exponent > 0; exponent >>= 1) {
+			if ((exponent & 1) == 1) {
+				result = result * base % modulus;
+			}
+			
+			base = base * base % modulus;
+		}
+		
+		return result;
+	}
+}
\ No newline at end of file
@@ -6,12 +6,12 @@
  * @author Ian Mays
  */
 public class NegativeBinomialDistribution {
-	private CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+	private LogCombinatorics logCombinatorics = new LogCombinatorics();
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
 	
 	/**
 	 * Calculates the probability of the rth success occurring after exactly a certain
-	 * number of trials.
+	 * number of trials. The terms are added as logarithms and exponentiated once.
 	 * @param y The number of trials
 	 * @param r The number of desired successes
 	 * @param p The probability of success on each trial
@@ -27,7 +27,7 @@ public class NegativeBinomialDistribution {
 		checkFor.tooManySuccesses(y, r);
 		checkFor.probabilityOutOfRange(p);
 		
-		return comsAndPerms.combinations(y-1, r-1).doubleValue() * Math.pow(p, r) * Math.pow(1-p, y-r);
+		return Math.exp(logCombinatorics.logChoose(y-1, r-1) + logCombinatorics.xLogY(r, p) + logCombinatorics.xLog1pY(y-r, -p));
 	}
 	
 	/**
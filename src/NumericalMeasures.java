@@ -1,12 +1,21 @@
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * A library of basic statistical operations on ArrayLists.
+ * A library of basic statistical operations on ArrayLists. <p>
+ * Every measure is also available for primitive double arrays, slices of double
+ * arrays (given by an offset and a length), DoubleBuffers, and OffHeapDoubleColumns.
+ * The primitive versions do the actual work; the ArrayList versions unbox the list
+ * once and pass it along. A DoubleBuffer is read from its position up to its limit,
+ * and its position is left unchanged. A column is read chunk by chunk and is never
+ * copied onto the heap as a whole.
  * 
  * @author Ian Mays
  */
 public class NumericalMeasures {
-	private ArrayListSorter sorter = new ArrayListSorter();
+	private OrderStatistics orderStatistics = new OrderStatistics();
+	private SummaryKernel kernel = new SummaryKernel();
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
 	
 	/**
@@ -18,17 +27,70 @@ public class NumericalMeasures {
 	public double findMean(ArrayList<Double> userInputNumbers) {
 		checkFor.arrayNotBigEnough(userInputNumbers, 1);
 		
+		return findMean(toArray(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the mean (average) of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return The average of the array
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMean(double[] userInputNumbers) {
+		return findMean(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the mean (average) of a slice of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The average of the slice
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMean(double[] userInputNumbers, int offset, int length) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		checkFor.lengthNotBigEnough(length, 1);
+		
+		double result = kernel.sum(userInputNumbers, offset, length) / length;
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the mean (average) of the remaining values in a buffer.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The average of the buffer
+	 * @throws StatsException if the buffer has no remaining values
+	 */
+	public double findMean(DoubleBuffer userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.remaining(), 1);
+		
+		if (userInputNumbers.hasArray()) {
+			return findMean(userInputNumbers.array(), userInputNumbers.arrayOffset() + userInputNumbers.position(), userInputNumbers.remaining());
+		}
+		
 		double sum = 0;
 		
-		for (double singleElement : userInputNumbers) {
-			sum += singleElement;
+		for (int i = userInputNumbers.position(); i < userInputNumbers.limit(); i++) {
+			sum += userInputNumbers.get(i);
 		}
 		
-		double result = sum / userInputNumbers.size();
+		double result = sum / userInputNumbers.remaining();
 		
 		return result;
 	}
 	
+	/**
+	 * Finds the mean (average) of a column stored off the heap.
+	 * @param userInputNumbers The column of numbers
+	 * @return The average of the column
+	 * @throws StatsException if the column is empty
+	 */
+	public double findMean(OffHeapDoubleColumn userInputNumbers) {
+		return momentsOf(userInputNumbers).findMean();
+	}
+	
 	/**
 	 * Finds the median of a list of numbers, i.e. the middle value when the list is
 	 * sorted in ascending order. If there is an even number of values, the median is
@@ -40,22 +102,105 @@ public class NumericalMeasures {
 	public double findMedian(ArrayList<Double> userInputNumbers) {
 		checkFor.arrayNotBigEnough(userInputNumbers, 1);
 		
-		ArrayList<Double> sortedNumbers = sorter.sort(userInputNumbers);
+		return medianOfCopy(toArray(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the median of an array of numbers. The array itself is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @return The median
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMedian(double[] userInputNumbers) {
+		return findMedian(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the median of a slice of an array of numbers. The array itself is not
+	 * modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The median
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMedian(double[] userInputNumbers, int offset, int length) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		checkFor.lengthNotBigEnough(length, 1);
 		
-		if (sortedNumbers.size() % 2 == 0) {
-			double leftSide = sortedNumbers.get(sortedNumbers.size()/2 - 1);
-			double rightSide = sortedNumbers.get(sortedNumbers.size()/2);
-			
-			return (leftSide+rightSide)/2;
-		} else {
-			return sortedNumbers.get(sortedNumbers.size()/2);
-		}
+		return medianOfCopy(Arrays.copyOfRange(userInputNumbers, offset, offset + length));
+	}
+	
+	/**
+	 * Finds the median of the remaining values in a buffer.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The median
+	 * @throws StatsException if the buffer has no remaining values
+	 */
+	public double findMedian(DoubleBuffer userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.remaining(), 1);
+		
+		return medianOfCopy(toArray(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the median of a column stored off the heap. The column is not modified;
+	 * the search works on an off-heap copy.
+	 * @param userInputNumbers The column of numbers
+	 * @return The median
+	 * @throws StatsException if the column is empty
+	 */
+	public double findMedian(OffHeapDoubleColumn userInputNumbers) {
+		return orderStatistics.median(userInputNumbers);
+	}
+	
+	/**
+	 * Finds the q quantile of a list of numbers, interpolating linearly between the two
+	 * closest ranks, so that the 0.5 quantile is the median. For streams too large to
+	 * keep in memory, QuantileSketch estimates the same quantity.
+	 * @param userInputNumbers The list of numbers
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the list is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(ArrayList<Double> userInputNumbers, double q) {
+		checkFor.arrayNotBigEnough(userInputNumbers, 1);
+		
+		return orderStatistics.quantilesInPlace(toArray(userInputNumbers), new double[] {q})[0];
+	}
+	
+	/**
+	 * Finds the q quantile of an array of numbers. The array itself is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the array is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(double[] userInputNumbers, double q) {
+		return quantile(userInputNumbers, 0, userInputNumbers.length, q);
+	}
+	
+	/**
+	 * Finds the q quantile of a slice of an array of numbers. The array itself is not
+	 * modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the slice is empty or out of range, or if q is not
+	 * between 0 and 1
+	 */
+	public double quantile(double[] userInputNumbers, int offset, int length, double q) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		
+		return orderStatistics.quantilesInPlace(Arrays.copyOfRange(userInputNumbers, offset, offset + length), new double[] {q})[0];
 	}
 	
 	/**
 	 * Finds the mode of a list of numbers, i.e. the most commonly occurring value.
-	 * For now, multimodal distributions, where there is a tie between two or
-	 * more distinct values, will return the smallest such value.
+	 * Multimodal distributions, where there is a tie between two or more distinct
+	 * values, will return the smallest such value; use findModes to get all of them.
 	 * @param userInputNumbers The list of numbers
 	 * @return The mode
 	 * @throws StatsException if the list is empty
@@ -63,33 +208,200 @@ public class NumericalMeasures {
 	public double findMode(ArrayList<Double> userInputNumbers) {
 		checkFor.arrayNotBigEnough(userInputNumbers, 1);
 		
-		ArrayList<Double> sortedNumbers = sorter.sort(userInputNumbers);
+		return findModes(userInputNumbers).getSmallestMode();
+	}
+	
+	/**
+	 * Finds the mode of an array of numbers. The array itself is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @return The mode
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMode(double[] userInputNumbers) {
+		return findMode(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the mode of a slice of an array of numbers. The array itself is not
+	 * modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The mode
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMode(double[] userInputNumbers, int offset, int length) {
+		return findModes(userInputNumbers, offset, length).getSmallestMode();
+	}
+	
+	/**
+	 * Finds the mode of the remaining values in a buffer.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The mode
+	 * @throws StatsException if the buffer has no remaining values
+	 */
+	public double findMode(DoubleBuffer userInputNumbers) {
+		return findModes(userInputNumbers).getSmallestMode();
+	}
+	
+	/**
+	 * Finds the mode of a column stored off the heap. If there is more than one mode,
+	 * the smallest one is returned.
+	 * @param userInputNumbers The column of numbers
+	 * @return The mode
+	 * @throws StatsException if the column is empty
+	 */
+	public double findMode(OffHeapDoubleColumn userInputNumbers) {
+		return findModes(userInputNumbers).getSmallestMode();
+	}
+	
+	/**
+	 * Finds every mode of a list of numbers, along with how often they occur. The
+	 * values are counted in a hash table rather than sorted, so this takes expected
+	 * O(n) time.
+	 * @param userInputNumbers The list of numbers
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the list is empty
+	 */
+	public ModeResult findModes(ArrayList<Double> userInputNumbers) {
+		checkFor.arrayNotBigEnough(userInputNumbers, 1);
+		
+		return modesOf(frequencyTable(userInputNumbers));
+	}
+	
+	/**
+	 * Finds every mode of an array of numbers, along with how often they occur.
+	 * @param userInputNumbers The array of numbers
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the array is empty
+	 */
+	public ModeResult findModes(double[] userInputNumbers) {
+		return findModes(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds every mode of a slice of an array of numbers, along with how often they
+	 * occur.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public ModeResult findModes(double[] userInputNumbers, int offset, int length) {
+		checkFor.lengthNotBigEnough(length, 1);
 		
-		int maxCount = 0;
-		int maxCountIndex = 0;
-		int currentCount = 0;
-		double lastNumber = sortedNumbers.get(0);
+		return modesOf(frequencyTable(userInputNumbers, offset, length));
+	}
+	
+	/**
+	 * Finds every mode of the remaining values in a buffer, along with how often they
+	 * occur.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the buffer has no remaining values
+	 */
+	public ModeResult findModes(DoubleBuffer userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.remaining(), 1);
 		
-		for (int i = 0; i < sortedNumbers.size(); i++) {
-			double currentNumber = sortedNumbers.get(i);
-			
-			if (i != 0) {
-				lastNumber = sortedNumbers.get(i-1);
-			}
+		return modesOf(frequencyTable(userInputNumbers));
+	}
+	
+	/**
+	 * Finds every mode of a column stored off the heap.
+	 * @param userInputNumbers The column of numbers
+	 * @return The modes and how often each occurs
+	 * @throws StatsException if the column is empty
+	 */
+	public ModeResult findModes(OffHeapDoubleColumn userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.size(), 1);
+		
+		return modesOf(frequencyTable(userInputNumbers));
+	}
+	
+	/**
+	 * Counts how many times each distinct value occurs in a list of numbers.
+	 * @param userInputNumbers The list of numbers
+	 * @return A table of each distinct value and its count
+	 */
+	public DoubleCountMap frequencyTable(ArrayList<Double> userInputNumbers) {
+		DoubleCountMap table = new DoubleCountMap();
+		
+		for (double singleElement : userInputNumbers) {
+			table.increment(singleElement);
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Counts how many times each distinct value occurs in an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return A table of each distinct value and its count
+	 */
+	public DoubleCountMap frequencyTable(double[] userInputNumbers) {
+		return frequencyTable(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Counts how many times each distinct value occurs in a slice of an array of
+	 * numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return A table of each distinct value and its count
+	 * @throws StatsException if the slice is out of range
+	 */
+	public DoubleCountMap frequencyTable(double[] userInputNumbers, int offset, int length) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		
+		DoubleCountMap table = new DoubleCountMap();
+		
+		for (int i = offset; i < offset + length; i++) {
+			table.increment(userInputNumbers[i]);
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Counts how many times each distinct value occurs among the remaining values in a
+	 * buffer.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return A table of each distinct value and its count
+	 */
+	public DoubleCountMap frequencyTable(DoubleBuffer userInputNumbers) {
+		if (userInputNumbers.hasArray()) {
+			return frequencyTable(userInputNumbers.array(), userInputNumbers.arrayOffset() + userInputNumbers.position(), userInputNumbers.remaining());
+		}
+		
+		DoubleCountMap table = new DoubleCountMap();
+		
+		for (int i = userInputNumbers.position(); i < userInputNumbers.limit(); i++) {
+			table.increment(userInputNumbers.get(i));
+		}
+		
+		return table;
+	}
+	
+	/**
+	 * Counts how many times each distinct value occurs in a column stored off the heap.
+	 * @param userInputNumbers The column of numbers
+	 * @return The count of each distinct value
+	 * @throws StatsException if any value occurs more than Integer.MAX_VALUE times
+	 */
+	public DoubleCountMap frequencyTable(OffHeapDoubleColumn userInputNumbers) {
+		DoubleCountMap table = new DoubleCountMap();
+		
+		for (int i = 0; i < userInputNumbers.getChunkCount(); i++) {
+			DoubleBuffer chunk = userInputNumbers.getChunk(i);
 			
-			if (currentNumber == lastNumber) {
-				currentCount++;
-				
-				if (currentCount > maxCount) {
-					maxCount = currentCount;
-					maxCountIndex = i;
-				}
-			} else {
-				currentCount = 1;
+			for (int j = 0; j < chunk.limit(); j++) {
+				table.increment(chunk.get(j));
 			}
 		}
 		
-		return sortedNumbers.get(maxCountIndex);
+		return table;
 	}
 	
 	/**
@@ -108,19 +420,78 @@ public class NumericalMeasures {
 	public double variance(ArrayList<Double> userInputNumbers) {
 		checkFor.arrayNotBigEnough(userInputNumbers, 2);
 		
+		return variance(toArray(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the variance of an array of numbers, in the same way as for a list.
+	 * @param userInputNumbers The array of numbers
+	 * @return The variance
+	 * @throws StatsException if the array does not contain at least two elements
+	 */
+	public double variance(double[] userInputNumbers) {
+		return variance(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the variance of a slice of an array of numbers, in the same way as for a
+	 * list.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The variance
+	 * @throws StatsException if the slice does not contain at least two elements, or
+	 * if it is out of range
+	 */
+	public double variance(double[] userInputNumbers, int offset, int length) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		checkFor.lengthNotBigEnough(length, 2);
+		
+		double mean = findMean(userInputNumbers, offset, length);
+		
+		double result = kernel.sumOfSquaredDeviations(userInputNumbers, offset, length, mean) / (length - 1);
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the variance of the remaining values in a buffer, in the same way as for
+	 * a list.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The variance
+	 * @throws StatsException if the buffer does not have at least two remaining values
+	 */
+	public double variance(DoubleBuffer userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.remaining(), 2);
+		
+		if (userInputNumbers.hasArray()) {
+			return variance(userInputNumbers.array(), userInputNumbers.arrayOffset() + userInputNumbers.position(), userInputNumbers.remaining());
+		}
+		
 		double mean = findMean(userInputNumbers);
 		
 		double sum = 0;
-		for (double singleElement : userInputNumbers) {
-			double deviation = singleElement - mean;
+		for (int i = userInputNumbers.position(); i < userInputNumbers.limit(); i++) {
+			double deviation = userInputNumbers.get(i) - mean;
 			sum += deviation * deviation;
 		}
 		
-		double result = sum / (userInputNumbers.size() - 1);
+		double result = sum / (userInputNumbers.remaining() - 1);
 		
 		return result;
 	}
 	
+	/**
+	 * Finds the variance of a column stored off the heap, in the same way as for a
+	 * list. The column is read once, with StreamingMoments.
+	 * @param userInputNumbers The column of numbers
+	 * @return The variance
+	 * @throws StatsException if the column does not contain at least two elements
+	 */
+	public double variance(OffHeapDoubleColumn userInputNumbers) {
+		return momentsOf(userInputNumbers).variance();
+	}
+	
 	/**
 	 * Finds the standard deviation of a list of numbers. This is just the square root
 	 * of the variance.
@@ -131,4 +502,253 @@ public class NumericalMeasures {
 	public double standardDeviation(ArrayList<Double> userInputNumbers) {
 		return Math.sqrt(variance(userInputNumbers));
 	}
+	
+	/**
+	 * Finds the standard deviation of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return The standard deviation
+	 * @throws StatsException if the array does not contain at least two elements
+	 */
+	public double standardDeviation(double[] userInputNumbers) {
+		return Math.sqrt(variance(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the standard deviation of a slice of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The standard deviation
+	 * @throws StatsException if the slice does not contain at least two elements, or
+	 * if it is out of range
+	 */
+	public double standardDeviation(double[] userInputNumbers, int offset, int length) {
+		return Math.sqrt(variance(userInputNumbers, offset, length));
+	}
+	
+	/**
+	 * Finds the standard deviation of the remaining values in a buffer.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The standard deviation
+	 * @throws StatsException if the buffer does not have at least two remaining values
+	 */
+	public double standardDeviation(DoubleBuffer userInputNumbers) {
+		return Math.sqrt(variance(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the standard deviation of a column stored off the heap.
+	 * @param userInputNumbers The column of numbers
+	 * @return The standard deviation
+	 * @throws StatsException if the column does not contain at least two elements
+	 */
+	public double standardDeviation(OffHeapDoubleColumn userInputNumbers) {
+		return Math.sqrt(variance(userInputNumbers));
+	}
+	
+	/**
+	 * Finds every measure in DescriptiveSummary for a list of numbers at once. The list
+	 * is unboxed and sorted a single time, and the median, quartiles, minimum, and
+	 * maximum are read straight off the sorted copy. One more pass over the sorted
+	 * copy finds the second, third, and fourth central moments together with the runs
+	 * of equal values that give the modes.
+	 * @param userInputNumbers The list of numbers
+	 * @return The summary
+	 * @throws StatsException if the list is empty
+	 */
+	public DescriptiveSummary describe(ArrayList<Double> userInputNumbers) {
+		checkFor.arrayNotBigEnough(userInputNumbers, 1);
+		
+		double[] sorted = toArray(userInputNumbers);
+		
+		return describeSorted(sorted, kernel.sum(sorted, 0, sorted.length) / sorted.length);
+	}
+	
+	/**
+	 * Finds every measure in DescriptiveSummary for an array of numbers at once, in
+	 * the same way as for a list. The array is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @return The summary
+	 * @throws StatsException if the array is empty
+	 */
+	public DescriptiveSummary describe(double[] userInputNumbers) {
+		return describe(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds every measure in DescriptiveSummary for a slice of an array of numbers at
+	 * once, in the same way as for a list. The array is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The summary
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public DescriptiveSummary describe(double[] userInputNumbers, int offset, int length) {
+		double mean = findMean(userInputNumbers, offset, length);
+		
+		return describeSorted(Arrays.copyOfRange(userInputNumbers, offset, offset + length), mean);
+	}
+	
+	/**
+	 * Finds every measure in DescriptiveSummary for the remaining values in a buffer
+	 * at once, in the same way as for a list.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return The summary
+	 * @throws StatsException if the buffer has no remaining values
+	 */
+	public DescriptiveSummary describe(DoubleBuffer userInputNumbers) {
+		checkFor.lengthNotBigEnough(userInputNumbers.remaining(), 1);
+		
+		double[] sorted = toArray(userInputNumbers);
+		
+		return describeSorted(sorted, kernel.sum(sorted, 0, sorted.length) / sorted.length);
+	}
+	
+	/**
+	 * Finds the count, sum, sum of squares, minimum, and maximum of an array of numbers
+	 * in a single pass.
+	 * @param userInputNumbers The array of numbers
+	 * @return The power sums of the array
+	 */
+	public PowerSums summarize(double[] userInputNumbers) {
+		return kernel.summarize(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the count, sum, sum of squares, minimum, and maximum of a slice of an array
+	 * of numbers in a single pass.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The power sums of the slice
+	 * @throws StatsException if the slice is out of range
+	 */
+	public PowerSums summarize(double[] userInputNumbers, int offset, int length) {
+		return kernel.summarize(userInputNumbers, offset, length);
+	}
+	
+	/**
+	 * Sorts a scratch array and finds every measure in DescriptiveSummary from it.
+	 * @param scratch A non-empty array that this class owns and may reorder
+	 * @param mean The mean of the values in the array
+	 * @return The summary
+	 */
+	private DescriptiveSummary describeSorted(double[] scratch, double mean) {
+		Arrays.sort(scratch);
+		
+		int n = scratch.length;
+		double m2 = 0;
+		double m3 = 0;
+		double m4 = 0;
+		
+		DoubleCountMap runs = new DoubleCountMap();
+		int runStart = 0;
+		
+		for (int i = 0; i < n; i++) {
+			double deviation = scratch[i] - mean;
+			double squared = deviation * deviation;
+			m2 += squared;
+			m3 += squared * deviation;
+			m4 += squared * squared;
+			
+			// a run of equal values ends here; NaN only equals itself as a mode
+			if (i == n - 1 || !(scratch[i + 1] == scratch[i] || Double.isNaN(scratch[i + 1]) && Double.isNaN(scratch[i]))) {
+				runs.add(scratch[i], i + 1 - runStart);
+				runStart = i + 1;
+			}
+		}
+		
+		double median = scratch[(n - 1) / 2];
+		if (n % 2 == 0) {
+			median = (scratch[n/2 - 1] + scratch[n/2]) / 2;
+		}
+		
+		double skewness = (m3 / n) / Math.pow(m2 / n, 1.5);
+		double kurtosis = (m4 / n) / ((m2 / n) * (m2 / n)) - 3;
+		
+		return new DescriptiveSummary(n, mean, median, modesOf(runs), m2, scratch[0], scratch[n - 1],
+				sortedQuantile(scratch, 0.25), sortedQuantile(scratch, 0.75), skewness, kurtosis);
+	}
+	
+	/**
+	 * @param sorted A non-empty array in ascending order
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile, interpolated like OrderStatistics.quantile
+	 */
+	private double sortedQuantile(double[] sorted, double q) {
+		double position = (sorted.length - 1) * q;
+		int lowerRank = (int) Math.floor(position);
+		double fraction = position - lowerRank;
+		
+		if (fraction == 0) {
+			return sorted[lowerRank];
+		}
+		
+		return sorted[lowerRank] + fraction * (sorted[lowerRank + 1] - sorted[lowerRank]);
+	}
+	
+	/**
+	 * Accumulates the moments of a column one chunk at a time.
+	 * @param userInputNumbers The column of numbers
+	 * @return The moments of the whole column
+	 */
+	private StreamingMoments momentsOf(OffHeapDoubleColumn userInputNumbers) {
+		StreamingMoments moments = new StreamingMoments();
+		
+		for (int i = 0; i < userInputNumbers.getChunkCount(); i++) {
+			moments.addAll(userInputNumbers.getChunk(i));
+		}
+		
+		return moments;
+	}
+	
+	/**
+	 * Reads off the median of a scratch array with a selection pass, which is O(n)
+	 * on average instead of the O(n log n) of a full sort.
+	 * @param scratch A non-empty array that this class owns and may reorder
+	 * @return The median
+	 */
+	private double medianOfCopy(double[] scratch) {
+		return orderStatistics.medianInPlace(scratch);
+	}
+	
+	/**
+	 * Reads the modes out of a frequency table.
+	 * @param table A non-empty frequency table
+	 * @return The modes and their frequency
+	 */
+	private ModeResult modesOf(DoubleCountMap table) {
+		int frequency = table.maxCount();
+		
+		return new ModeResult(table.keysWithCount(frequency), frequency);
+	}
+	
+	/**
+	 * Unboxes a list into a new primitive array.
+	 * @param userInputNumbers The list of numbers
+	 * @return An array holding the same values in the same order
+	 */
+	private double[] toArray(ArrayList<Double> userInputNumbers) {
+		double[] result = new double[userInputNumbers.size()];
+		
+		for (int i = 0; i < result.length; i++) {
+			result[i] = userInputNumbers.get(i);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Copies the remaining values of a buffer into a new array without moving the
+	 * buffer's position.
+	 * @param userInputNumbers The buffer of numbers
+	 * @return An array holding the remaining values
+	 */
+	private double[] toArray(DoubleBuffer userInputNumbers) {
+		double[] result = new double[userInputNumbers.remaining()];
+		userInputNumbers.duplicate().get(result);
+		
+		return result;
+	}
 }
\ No newline at end of file
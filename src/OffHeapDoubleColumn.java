@@ -0,0 +1,264 @@
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable column of doubles stored outside the Java heap, for keeping very large
+ * samples in memory without boxing them or making the garbage collector scan them.
+ * The values live in direct buffers of a fixed number of doubles each (2^24, or
+ * 128 MB, by default); the heap only holds one small buffer object per chunk, no
+ * matter how many values there are. The last chunk starts small and doubles as it
+ * fills, up to the chunk size, so a column takes off-heap memory in proportion to
+ * the values it holds rather than a whole chunk at a time. <p>
+ * NumericalMeasures, OrderStatistics, and ArrayListSorter all accept a column, and
+ * work through it chunk by chunk. Each chunk is also exposed as a DoubleBuffer, which
+ * the DoubleBuffer versions of NumericalMeasures and StreamingMoments accept
+ * directly. <p>
+ * Closing the column drops its chunks, after which it cannot be used. Java 17 has no
+ * supported way to free a direct buffer on demand, so the memory itself goes back to
+ * the system when the chunk objects are garbage collected.
+ * 
+ * @author Ian Mays
+ */
+public class OffHeapDoubleColumn implements Closeable {
+	/**
+	 * The number of doubles in each chunk used by the no-argument constructor.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+	
+	private static final int INITIAL_CHUNK_CAPACITY = 1024;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private DoubleBuffer[] chunks = new DoubleBuffer[0];
+	private int chunkSize;
+	private long size = 0;
+	private boolean open = true;
+	
+	/**
+	 * Constructs an empty column.
+	 */
+	public OffHeapDoubleColumn() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+	
+	/**
+	 * Constructs an empty column that allocates chunks of a given size.
+	 * @param chunkSize The number of doubles in each chunk
+	 * @throws StatsException if chunkSize is not positive, or if a chunk would be
+	 * larger than 2 GB
+	 */
+	public OffHeapDoubleColumn(int chunkSize) {
+		checkFor.nonPositiveSize(chunkSize);
+		checkFor.chunkTooLarge(chunkSize);
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Adds a value to the end of the column. If the last chunk is full, it is moved to
+	 * one twice as large, or a new small chunk is started once it reaches the chunk
+	 * size.
+	 * @param value The value to add
+	 * @throws StatsException if the column has been closed
+	 */
+	public void add(double value) {
+		checkFor.columnClosed(open);
+		
+		int chunk = (int) (size / chunkSize);
+		int offset = (int) (size % chunkSize);
+		if (chunk == chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunks.length + 1);
+			chunks[chunk] = allocateChunk(Math.min(chunkSize, INITIAL_CHUNK_CAPACITY));
+		} else if (offset == chunks[chunk].capacity()) {
+			DoubleBuffer grown = allocateChunk((int) Math.min(chunkSize, 2L * offset));
+			grown.put(getChunk(chunk));
+			chunks[chunk] = grown;
+		}
+		
+		chunks[chunk].put(offset, value);
+		size++;
+	}
+	
+	/**
+	 * Adds every value of an array to the end of the column.
+	 * @param values The values to add
+	 * @throws StatsException if the column has been closed
+	 */
+	public void addAll(double[] values) {
+		for (double singleElement : values) {
+			add(singleElement);
+		}
+	}
+	
+	/**
+	 * @return The number of doubles in the column
+	 * @throws StatsException if the column has been closed
+	 */
+	public long size() {
+		checkFor.columnClosed(open);
+		
+		return size;
+	}
+	
+	/**
+	 * @param index The index of the double, starting at zero
+	 * @return The double at that index
+	 * @throws StatsException if the column has been closed, or if the index is out of
+	 * range
+	 */
+	public double get(long index) {
+		checkFor.columnClosed(open);
+		checkFor.rankOutOfRange(size, index);
+		
+		return chunks[(int) (index / chunkSize)].get((int) (index % chunkSize));
+	}
+	
+	/**
+	 * @param index The index of the double, starting at zero
+	 * @param value The new value to store at that index
+	 * @throws StatsException if the column has been closed, or if the index is out of
+	 * range
+	 */
+	public void set(long index, double value) {
+		checkFor.columnClosed(open);
+		checkFor.rankOutOfRange(size, index);
+		
+		chunks[(int) (index / chunkSize)].put((int) (index % chunkSize), value);
+	}
+	
+	/**
+	 * @return The number of doubles in each chunk
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	/**
+	 * @return The number of chunks holding values
+	 * @throws StatsException if the column has been closed
+	 */
+	public int getChunkCount() {
+		checkFor.columnClosed(open);
+		
+		return chunks.length;
+	}
+	
+	/**
+	 * @param i The index of the chunk
+	 * @return A view of the values in the chunk, from its start up to its last value.
+	 * Writing through the view changes the column.
+	 * @throws StatsException if the column has been closed
+	 */
+	public DoubleBuffer getChunk(int i) {
+		checkFor.columnClosed(open);
+		
+		DoubleBuffer view = chunks[i].duplicate();
+		view.clear();
+		view.limit((int) Math.min(chunkSize, size - (long) i * chunkSize));
+		
+		return view;
+	}
+	
+	/**
+	 * Copies the column into a new column with the same chunk size. The copy's last
+	 * chunk only holds as many doubles as this column's last chunk does.
+	 * @return The copy
+	 * @throws StatsException if the column has been closed
+	 */
+	public OffHeapDoubleColumn copy() {
+		checkFor.columnClosed(open);
+		
+		OffHeapDoubleColumn result = new OffHeapDoubleColumn(chunkSize);
+		copyInto(result);
+		
+		return result;
+	}
+	
+	/**
+	 * Replaces the contents of another column with a copy of this one. The other
+	 * column's chunks are reused wherever they are big enough, so copying into the
+	 * same column again and again only allocates memory when this column has grown.
+	 * @param target The column to overwrite, with the same chunk size as this one
+	 * @throws StatsException if either column has been closed, or if their chunk sizes
+	 * are different
+	 */
+	public void copyInto(OffHeapDoubleColumn target) {
+		checkFor.columnClosed(open);
+		checkFor.columnClosed(target.open);
+		checkFor.chunkSizesNotEqual(chunkSize, target.chunkSize);
+		
+		if (target == this) {
+			return;
+		}
+		
+		DoubleBuffer[] targetChunks = Arrays.copyOf(target.chunks, chunks.length);
+		for (int i = 0; i < chunks.length; i++) {
+			DoubleBuffer source = getChunk(i);
+			
+			if (targetChunks[i] == null || targetChunks[i].capacity() < source.limit()) {
+				targetChunks[i] = allocateChunk(source.limit());
+			}
+			
+			targetChunks[i].position(0);
+			targetChunks[i].put(source);
+		}
+		
+		target.chunks = targetChunks;
+		target.size = size;
+	}
+	
+	/**
+	 * Copies the column onto the heap.
+	 * @return The values of the column, in order
+	 * @throws StatsException if the column has been closed, or if it holds too many
+	 * values for one array
+	 */
+	public double[] toArray() {
+		checkFor.columnClosed(open);
+		checkFor.tooManyValuesToCopy(size);
+		
+		double[] result = new double[(int) size];
+		for (int i = 0; i < chunks.length; i++) {
+			getChunk(i).get(result, i * chunkSize, (int) Math.min(chunkSize, size - (long) i * chunkSize));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Drops the column's chunks. The memory is released once they are garbage
+	 * collected.
+	 */
+	@Override
+	public void close() {
+		chunks = new DoubleBuffer[0];
+		size = 0;
+		open = false;
+	}
+	
+	/**
+	 * Swaps the contents of this column with another column of the same chunk size.
+	 * Used by ArrayListSorter to put merged runs in place without copying them back.
+	 * @param other The other column
+	 */
+	void swapContents(OffHeapDoubleColumn other) {
+		DoubleBuffer[] tempChunks = chunks;
+		chunks = other.chunks;
+		other.chunks = tempChunks;
+		
+		long tempSize = size;
+		size = other.size;
+		other.size = tempSize;
+	}
+	
+	/**
+	 * @param capacity The number of doubles the chunk can hold
+	 * @return A new direct buffer in the platform's byte order
+	 */
+	private static DoubleBuffer allocateChunk(int capacity) {
+		return ByteBuffer.allocateDirect(8 * capacity).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+	}
+}
\ No newline at end of file
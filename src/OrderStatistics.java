@@ -0,0 +1,650 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Contains methods for finding order statistics (the kth smallest value), medians,
+ * and quantiles of arrays without fully sorting them. <p>
+ * The work is done by introselect: a quickselect that partitions around a
+ * median-of-three pivot into values below, equal to, and above the pivot, and only
+ * continues into the parts that still contain a requested rank. Several ranks can be
+ * requested at once, and they share the same partitioning pass. If the partitioning
+ * goes badly (more than about 2 log2(n) levels deep), the remaining range is sorted
+ * instead, so the worst case is O(n log n) while the expected cost is O(n). <p>
+ * Every method comes in two forms. The "InPlace" methods reorder the array they are
+ * given and allocate nothing, for callers who own the buffer. The other methods
+ * work on a copy and leave the original alone. <p>
+ * Ranks start at zero, so rank 0 is the minimum and rank n-1 is the maximum. NaN
+ * values are treated as larger than everything else, just like Arrays.sort. Quantiles
+ * interpolate linearly between the two closest ranks, so the q quantile of n values
+ * sits at rank (n-1)*q, and the 0.5 quantile is the same as the median. <p>
+ * The same searches work on an OffHeapDoubleColumn, with long ranks. The column is
+ * partitioned through its get and set methods until the range that is left is small
+ * enough to copy onto the heap, and that range is finished with the array code. If
+ * the partitioning goes badly there, the pivots are chosen at random instead of being
+ * sorted, since the column may be too large to sort.
+ * 
+ * @author Ian Mays
+ */
+public class OrderStatistics {
+	private static final int INSERTION_SORT_THRESHOLD = 16;
+	private static final int COLUMN_COPY_THRESHOLD = 1 << 16;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	/**
+	 * Finds the kth smallest value of an array, without modifying the array.
+	 * @param values The array of values
+	 * @param k The rank to find, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank in the array
+	 */
+	public double select(double[] values, int k) {
+		return selectInPlace(values.clone(), k);
+	}
+	
+	/**
+	 * Finds the kth smallest value of an array. Afterwards the array is partially
+	 * ordered: the value of rank k is at index k, with nothing larger before it and
+	 * nothing smaller after it.
+	 * @param values The array of values, which will be reordered
+	 * @param k The rank to find, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank in the array
+	 */
+	public double selectInPlace(double[] values, int k) {
+		return selectInPlace(values, 0, values.length, k);
+	}
+	
+	/**
+	 * Finds the kth smallest value of a slice of an array. Only the slice is
+	 * reordered.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @param k The rank to find within the slice, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if the slice is out of range, or if k is not a valid rank
+	 * in the slice
+	 */
+	public double selectInPlace(double[] values, int offset, int length, int k) {
+		checkFor.sliceOutOfRange(values, offset, length);
+		checkFor.rankOutOfRange(length, k);
+		
+		int[] ranks = {k};
+		partitionAround(values, offset, length, ranks);
+		
+		return values[offset + k];
+	}
+	
+	/**
+	 * Finds several order statistics of an array in a single partitioning pass,
+	 * without modifying the array.
+	 * @param values The array of values
+	 * @param ranks The ranks to find, starting at zero, in any order
+	 * @return The value of each rank, in the same order as the ranks
+	 * @throws StatsException if any rank is not valid in the array
+	 */
+	public double[] selectAll(double[] values, int[] ranks) {
+		return selectAllInPlace(values.clone(), 0, values.length, ranks);
+	}
+	
+	/**
+	 * Finds several order statistics of a slice of an array in a single partitioning
+	 * pass. Only the slice is reordered.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @param ranks The ranks to find within the slice, starting at zero, in any order
+	 * @return The value of each rank, in the same order as the ranks
+	 * @throws StatsException if the slice is out of range, or if any rank is not valid
+	 * in the slice
+	 */
+	public double[] selectAllInPlace(double[] values, int offset, int length, int[] ranks) {
+		checkFor.sliceOutOfRange(values, offset, length);
+		for (int k : ranks) {
+			checkFor.rankOutOfRange(length, k);
+		}
+		
+		int[] sortedRanks = ranks.clone();
+		Arrays.sort(sortedRanks);
+		partitionAround(values, offset, length, sortedRanks);
+		
+		double[] result = new double[ranks.length];
+		for (int i = 0; i < ranks.length; i++) {
+			result[i] = values[offset + ranks[i]];
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the median of an array without modifying the array. If there is an even
+	 * number of values, the median is the average of the middle two values.
+	 * @param values The array of values
+	 * @return The median
+	 * @throws StatsException if the array is empty
+	 */
+	public double median(double[] values) {
+		return medianInPlace(values.clone(), 0, values.length);
+	}
+	
+	/**
+	 * Finds the median of an array, reordering the array along the way.
+	 * @param values The array of values, which will be reordered
+	 * @return The median
+	 * @throws StatsException if the array is empty
+	 */
+	public double medianInPlace(double[] values) {
+		return medianInPlace(values, 0, values.length);
+	}
+	
+	/**
+	 * Finds the median of a slice of an array. Only the slice is reordered.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @return The median
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double medianInPlace(double[] values, int offset, int length) {
+		checkFor.sliceOutOfRange(values, offset, length);
+		checkFor.lengthNotBigEnough(length, 1);
+		
+		double rightSide = selectInPlace(values, offset, length, length/2);
+		
+		if (length % 2 == 1) {
+			return rightSide;
+		}
+		
+		// everything left of the upper middle value is no larger than it, so the lower
+		// middle value is just the largest of those
+		double leftSide = values[offset];
+		for (int i = offset + 1; i < offset + length/2; i++) {
+			if (values[i] > leftSide || Double.isNaN(values[i])) {
+				leftSide = values[i];
+			}
+		}
+		
+		return (leftSide+rightSide)/2;
+	}
+	
+	/**
+	 * Finds the q quantile of an array without modifying the array.
+	 * @param values The array of values
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the array is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(double[] values, double q) {
+		return quantilesInPlace(values.clone(), 0, values.length, new double[] {q})[0];
+	}
+	
+	/**
+	 * Finds several quantiles of an array in a single partitioning pass, without
+	 * modifying the array.
+	 * @param values The array of values
+	 * @param qs The quantiles, each between 0 and 1, in any order
+	 * @return The value of each quantile, in the same order as qs
+	 * @throws StatsException if the array is empty, or if any quantile is not between
+	 * 0 and 1
+	 */
+	public double[] quantiles(double[] values, double[] qs) {
+		return quantilesInPlace(values.clone(), 0, values.length, qs);
+	}
+	
+	/**
+	 * Finds several quantiles of an array in a single partitioning pass, reordering
+	 * the array along the way.
+	 * @param values The array of values, which will be reordered
+	 * @param qs The quantiles, each between 0 and 1, in any order
+	 * @return The value of each quantile, in the same order as qs
+	 * @throws StatsException if the array is empty, or if any quantile is not between
+	 * 0 and 1
+	 */
+	public double[] quantilesInPlace(double[] values, double[] qs) {
+		return quantilesInPlace(values, 0, values.length, qs);
+	}
+	
+	/**
+	 * Finds several quantiles of a slice of an array in a single partitioning pass.
+	 * Only the slice is reordered.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @param qs The quantiles, each between 0 and 1, in any order
+	 * @return The value of each quantile, in the same order as qs
+	 * @throws StatsException if the slice is empty or out of range, or if any quantile
+	 * is not between 0 and 1
+	 */
+	public double[] quantilesInPlace(double[] values, int offset, int length, double[] qs) {
+		checkFor.sliceOutOfRange(values, offset, length);
+		checkFor.lengthNotBigEnough(length, 1);
+		for (double q : qs) {
+			checkFor.quantileOutOfRange(q);
+		}
+		
+		// each quantile needs the rank at or below (n-1)*q, plus the rank above it
+		int[] ranks = new int[2 * qs.length];
+		for (int i = 0; i < qs.length; i++) {
+			int lowerRank = (int) Math.floor((length - 1) * qs[i]);
+			ranks[2*i] = lowerRank;
+			ranks[2*i + 1] = Math.min(lowerRank + 1, length - 1);
+		}
+		
+		Arrays.sort(ranks);
+		partitionAround(values, offset, length, ranks);
+		
+		double[] result = new double[qs.length];
+		for (int i = 0; i < qs.length; i++) {
+			double position = (length - 1) * qs[i];
+			int lowerRank = (int) Math.floor(position);
+			double fraction = position - lowerRank;
+			double lowerValue = values[offset + lowerRank];
+			
+			if (fraction == 0) {
+				result[i] = lowerValue;
+			} else {
+				result[i] = lowerValue + fraction * (values[offset + lowerRank + 1] - lowerValue);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the kth smallest value of a column, without modifying the column. The
+	 * search works on an off-heap copy, so every call allocates another 8 bytes per
+	 * value outside the heap, which is only released once the copy is garbage
+	 * collected. For repeated searches, pass a scratch column instead.
+	 * @param values The column of values
+	 * @param k The rank to find, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank in the column
+	 */
+	public double select(OffHeapDoubleColumn values, long k) {
+		try (OffHeapDoubleColumn scratch = values.copy()) {
+			return selectInPlace(scratch, k);
+		}
+	}
+	
+	/**
+	 * Finds the kth smallest value of a column, without modifying the column. The
+	 * search works on a copy written over a scratch column, whose chunks are reused
+	 * from call to call.
+	 * @param values The column of values
+	 * @param k The rank to find, starting at zero
+	 * @param scratch The column to copy the values into, with the same chunk size
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank in the column, or if the chunk
+	 * sizes of the columns are different
+	 */
+	public double select(OffHeapDoubleColumn values, long k, OffHeapDoubleColumn scratch) {
+		values.copyInto(scratch);
+		
+		return selectInPlace(scratch, k);
+	}
+	
+	/**
+	 * Finds the kth smallest value of a column. Afterwards the column is partially
+	 * ordered: the value of rank k is at index k, with nothing larger before it and
+	 * nothing smaller after it.
+	 * @param values The column of values, which will be reordered
+	 * @param k The rank to find, starting at zero
+	 * @return The value of rank k
+	 * @throws StatsException if k is not a valid rank in the column
+	 */
+	public double selectInPlace(OffHeapDoubleColumn values, long k) {
+		checkFor.rankOutOfRange(values.size(), k);
+		
+		long end = values.size();
+		for (long i = 0; i < end; i++) {
+			if (Double.isNaN(values.get(i))) {
+				end--;
+				swap(values, i, end);
+				i--;
+			}
+		}
+		
+		// ranks that land among the NaN values are already in place
+		if (k >= end) {
+			return values.get(k);
+		}
+		
+		long low = 0;
+		long high = end - 1;
+		int depthLimit = 2 * (64 - Long.numberOfLeadingZeros(end));
+		SplittableRandom random = new SplittableRandom(k);
+		
+		while (high - low >= COLUMN_COPY_THRESHOLD) {
+			double pivot;
+			
+			if (depthLimit > 0) {
+				depthLimit--;
+				pivot = medianOfThree(values.get(low), values.get(low + (high - low)/2), values.get(high));
+			} else {
+				long range = high - low + 1;
+				pivot = medianOfThree(values.get(low + random.nextLong(range)), values.get(low + random.nextLong(range)), values.get(low + random.nextLong(range)));
+			}
+			
+			long lessEnd = low;
+			long i = low;
+			long greaterStart = high;
+			while (i <= greaterStart) {
+				double value = values.get(i);
+				
+				if (value < pivot) {
+					swap(values, lessEnd, i);
+					lessEnd++;
+					i++;
+				} else if (value > pivot) {
+					swap(values, i, greaterStart);
+					greaterStart--;
+				} else {
+					i++;
+				}
+			}
+			
+			if (k < lessEnd) {
+				high = lessEnd - 1;
+			} else if (k > greaterStart) {
+				low = greaterStart + 1;
+			} else {
+				return pivot;
+			}
+		}
+		
+		double[] range = new double[(int) (high - low + 1)];
+		for (int i = 0; i < range.length; i++) {
+			range[i] = values.get(low + i);
+		}
+		
+		double result = selectInPlace(range, (int) (k - low));
+		
+		for (int i = 0; i < range.length; i++) {
+			values.set(low + i, range[i]);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the median of a column without modifying the column. If there is an even
+	 * number of values, the median is the average of the middle two values. Like
+	 * select, this works on a new off-heap copy of the column each time.
+	 * @param values The column of values
+	 * @return The median
+	 * @throws StatsException if the column is empty
+	 */
+	public double median(OffHeapDoubleColumn values) {
+		try (OffHeapDoubleColumn scratch = values.copy()) {
+			return medianInPlace(scratch);
+		}
+	}
+	
+	/**
+	 * Finds the median of a column without modifying the column, working on a copy
+	 * written over a scratch column.
+	 * @param values The column of values
+	 * @param scratch The column to copy the values into, with the same chunk size
+	 * @return The median
+	 * @throws StatsException if the column is empty, or if the chunk sizes of the
+	 * columns are different
+	 */
+	public double median(OffHeapDoubleColumn values, OffHeapDoubleColumn scratch) {
+		values.copyInto(scratch);
+		
+		return medianInPlace(scratch);
+	}
+	
+	/**
+	 * Finds the median of a column, reordering the column along the way.
+	 * @param values The column of values, which will be reordered
+	 * @return The median
+	 * @throws StatsException if the column is empty
+	 */
+	public double medianInPlace(OffHeapDoubleColumn values) {
+		long length = values.size();
+		checkFor.lengthNotBigEnough(length, 1);
+		
+		double leftSide = selectInPlace(values, (length - 1) / 2);
+		
+		if (length % 2 == 1) {
+			return leftSide;
+		}
+		
+		return (leftSide + smallestAfter(values, (length - 1) / 2)) / 2;
+	}
+	
+	/**
+	 * Finds the q quantile of a column without modifying the column. Like select,
+	 * this works on a new off-heap copy of the column each time.
+	 * @param values The column of values
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the column is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(OffHeapDoubleColumn values, double q) {
+		try (OffHeapDoubleColumn scratch = values.copy()) {
+			return quantileInPlace(scratch, q);
+		}
+	}
+	
+	/**
+	 * Finds the q quantile of a column without modifying the column, working on a
+	 * copy written over a scratch column.
+	 * @param values The column of values
+	 * @param q The quantile, between 0 and 1
+	 * @param scratch The column to copy the values into, with the same chunk size
+	 * @return The q quantile
+	 * @throws StatsException if the column is empty, if q is not between 0 and 1, or
+	 * if the chunk sizes of the columns are different
+	 */
+	public double quantile(OffHeapDoubleColumn values, double q, OffHeapDoubleColumn scratch) {
+		values.copyInto(scratch);
+		
+		return quantileInPlace(scratch, q);
+	}
+	
+	/**
+	 * Finds the q quantile of a column, reordering the column along the way.
+	 * @param values The column of values, which will be reordered
+	 * @param q The quantile, between 0 and 1
+	 * @return The q quantile
+	 * @throws StatsException if the column is empty, or if q is not between 0 and 1
+	 */
+	public double quantileInPlace(OffHeapDoubleColumn values, double q) {
+		long length = values.size();
+		checkFor.lengthNotBigEnough(length, 1);
+		checkFor.quantileOutOfRange(q);
+		
+		double position = (length - 1) * q;
+		long lowerRank = (long) Math.floor(position);
+		double fraction = position - lowerRank;
+		double lowerValue = selectInPlace(values, lowerRank);
+		
+		if (fraction == 0) {
+			return lowerValue;
+		}
+		
+		return lowerValue + fraction * (smallestAfter(values, lowerRank) - lowerValue);
+	}
+	
+	/**
+	 * Reads off the value of rank k + 1 once the value of rank k is in place, which is
+	 * just the smallest value after index k.
+	 * @param values A column that has been partitioned around rank k
+	 * @param k The rank that is in place, which must not be the last one
+	 * @return The value of rank k + 1
+	 */
+	private double smallestAfter(OffHeapDoubleColumn values, long k) {
+		double result = values.get(k + 1);
+		
+		for (long i = k + 2; i < values.size(); i++) {
+			double value = values.get(i);
+			
+			if (value < result || Double.isNaN(result)) {
+				result = value;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Reorders a slice so that the value of each requested rank is at its sorted
+	 * position. NaN values are first moved to the end of the slice, where Arrays.sort
+	 * would put them, and only the remaining values are partitioned.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @param sortedRanks The ranks to place, in ascending order
+	 */
+	private void partitionAround(double[] values, int offset, int length, int[] sortedRanks) {
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			if (Double.isNaN(values[i])) {
+				end--;
+				swap(values, i, end);
+				i--;
+			}
+		}
+		
+		int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(length));
+		
+		// ranks that land among the NaN values are already in place
+		int rankCount = 0;
+		while (rankCount < sortedRanks.length && offset + sortedRanks[rankCount] < end) {
+			rankCount++;
+		}
+		
+		introselect(values, offset, end - 1, offset, sortedRanks, 0, rankCount, depthLimit);
+	}
+	
+	/**
+	 * Places the value of each rank in sortedRanks[rankFrom, rankTo) at its sorted
+	 * position within values[low, high].
+	 * @param values The array of values, containing no NaN values in [low, high]
+	 * @param low The first index of the range
+	 * @param high The last index of the range
+	 * @param base The index that rank 0 refers to
+	 * @param sortedRanks The requested ranks, in ascending order
+	 * @param rankFrom The first rank (inclusive) that falls in this range
+	 * @param rankTo The last rank (exclusive) that falls in this range
+	 * @param depthLimit The number of partitioning levels left before sorting instead
+	 */
+	private void introselect(double[] values, int low, int high, int base, int[] sortedRanks, int rankFrom, int rankTo, int depthLimit) {
+		while (rankFrom < rankTo && low < high) {
+			if (high - low < INSERTION_SORT_THRESHOLD) {
+				insertionSort(values, low, high);
+				return;
+			}
+			
+			if (depthLimit == 0) {
+				Arrays.sort(values, low, high + 1);
+				return;
+			}
+			
+			depthLimit--;
+			
+			double pivot = medianOfThree(values[low], values[low + (high - low)/2], values[high]);
+			
+			// three-way partition: [low, lessEnd) < pivot, [lessEnd, greaterStart] == pivot,
+			// (greaterStart, high] > pivot
+			int lessEnd = low;
+			int i = low;
+			int greaterStart = high;
+			while (i <= greaterStart) {
+				if (values[i] < pivot) {
+					swap(values, lessEnd, i);
+					lessEnd++;
+					i++;
+				} else if (values[i] > pivot) {
+					swap(values, i, greaterStart);
+					greaterStart--;
+				} else {
+					i++;
+				}
+			}
+			
+			// split the requested ranks between the part below and the part above the pivot
+			int leftRankTo = rankFrom;
+			while (leftRankTo < rankTo && base + sortedRanks[leftRankTo] < lessEnd) {
+				leftRankTo++;
+			}
+			
+			int rightRankFrom = leftRankTo;
+			while (rightRankFrom < rankTo && base + sortedRanks[rightRankFrom] <= greaterStart) {
+				rightRankFrom++;
+			}
+			
+			introselect(values, low, lessEnd - 1, base, sortedRanks, rankFrom, leftRankTo, depthLimit);
+			
+			low = greaterStart + 1;
+			rankFrom = rightRankFrom;
+		}
+	}
+	
+	/**
+	 * Sorts values[low, high] by insertion, which is fastest for very short ranges.
+	 * @param values The array of values
+	 * @param low The first index of the range
+	 * @param high The last index of the range
+	 */
+	private void insertionSort(double[] values, int low, int high) {
+		for (int i = low + 1; i <= high; i++) {
+			double current = values[i];
+			int j = i - 1;
+			
+			while (j >= low && values[j] > current) {
+				values[j + 1] = values[j];
+				j--;
+			}
+			
+			values[j + 1] = current;
+		}
+	}
+	
+	/**
+	 * @param a The first value
+	 * @param b The second value
+	 * @param c The third value
+	 * @return The middle of the three values
+	 */
+	private double medianOfThree(double a, double b, double c) {
+		if (a < b) {
+			if (b < c) {
+				return b;
+			}
+			
+			return a < c ? c : a;
+		}
+		
+		if (a < c) {
+			return a;
+		}
+		
+		return b < c ? c : b;
+	}
+	
+	/**
+	 * @param values The array of values
+	 * @param i The index of the first value to swap
+	 * @param j The index of the second value to swap
+	 */
+	private void swap(double[] values, int i, int j) {
+		double temp = values[i];
+		values[i] = values[j];
+		values[j] = temp;
+	}
+	
+	/**
+	 * @param values The column of values
+	 * @param i The index of the first value to swap
+	 * @param j The index of the second value to swap
+	 */
+	private void swap(OffHeapDoubleColumn values, long i, long j) {
+		double temp = values.get(i);
+		values.set(i, values.get(j));
+		values.set(j, temp);
+	}
+}
\ No newline at end of file
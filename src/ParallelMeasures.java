@@ -0,0 +1,385 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel versions of the NumericalMeasures methods for large arrays. The array is
+ * split in half again and again until each piece is no longer than the split size.
+ * Each piece is reduced on its own, and the partial results are merged back up the
+ * same tree: StreamingMoments (Chan's formula) for the mean and variance,
+ * DoubleCountMap for the mode, and GroupedMoments for per-key moments. <p>
+ * Arrays no longer than the split size are handed straight to NumericalMeasures, so
+ * small inputs pay nothing for the parallel machinery. Since the shape of the tree
+ * only depends on the length of the data and the split size, and partial results are
+ * always merged left to right, running the same input with the same split size gives
+ * exactly the same answer every time, no matter how many threads pick up the work. <p>
+ * The median is found with the serial selection in NumericalMeasures, which is
+ * already O(n) and does not split into independent pieces.
+ * 
+ * @author Ian Mays
+ */
+public class ParallelMeasures {
+	/**
+	 * The split size used by the no-argument constructor.
+	 */
+	public static final int DEFAULT_SPLIT_SIZE = 1 << 16;
+	
+	private NumericalMeasures serialMeasures = new NumericalMeasures();
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private ForkJoinPool pool;
+	private int splitSize;
+	
+	/**
+	 * Constructs a new ParallelMeasures that runs on the common ForkJoinPool with the
+	 * default split size.
+	 */
+	public ParallelMeasures() {
+		this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE);
+	}
+	
+	/**
+	 * Constructs a new ParallelMeasures that runs on the common ForkJoinPool.
+	 * @param splitSize The largest piece of an array to reduce on a single thread;
+	 * arrays no longer than this are not split at all
+	 * @throws StatsException if splitSize is not positive
+	 */
+	public ParallelMeasures(int splitSize) {
+		this(ForkJoinPool.commonPool(), splitSize);
+	}
+	
+	/**
+	 * Constructs a new ParallelMeasures.
+	 * @param pool The pool to run the pieces on
+	 * @param splitSize The largest piece of an array to reduce on a single thread;
+	 * arrays no longer than this are not split at all
+	 * @throws StatsException if splitSize is not positive
+	 */
+	public ParallelMeasures(ForkJoinPool pool, int splitSize) {
+		checkFor.nonPositiveSize(splitSize);
+		
+		this.pool = pool;
+		this.splitSize = splitSize;
+	}
+	
+	/**
+	 * @return The largest piece of an array that is reduced on a single thread
+	 */
+	public int getSplitSize() {
+		return splitSize;
+	}
+	
+	/**
+	 * Finds the mean (average) of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return The average of the array
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMean(double[] userInputNumbers) {
+		return findMean(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the mean (average) of a slice of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The average of the slice
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMean(double[] userInputNumbers, int offset, int length) {
+		if (length <= splitSize) {
+			return serialMeasures.findMean(userInputNumbers, offset, length);
+		}
+		
+		return moments(userInputNumbers, offset, length).findMean();
+	}
+	
+	/**
+	 * Finds the median of an array of numbers. The array itself is not modified.
+	 * @param userInputNumbers The array of numbers
+	 * @return The median
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMedian(double[] userInputNumbers) {
+		return serialMeasures.findMedian(userInputNumbers);
+	}
+	
+	/**
+	 * Finds the median of a slice of an array of numbers. The array itself is not
+	 * modified.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The median
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMedian(double[] userInputNumbers, int offset, int length) {
+		return serialMeasures.findMedian(userInputNumbers, offset, length);
+	}
+	
+	/**
+	 * Finds the mode of an array of numbers. Ties return the smallest such value.
+	 * @param userInputNumbers The array of numbers
+	 * @return The mode
+	 * @throws StatsException if the array is empty
+	 */
+	public double findMode(double[] userInputNumbers) {
+		return findModes(userInputNumbers).getSmallestMode();
+	}
+	
+	/**
+	 * Finds the mode of a slice of an array of numbers. Ties return the smallest such
+	 * value.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The mode
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public double findMode(double[] userInputNumbers, int offset, int length) {
+		return findModes(userInputNumbers, offset, length).getSmallestMode();
+	}
+	
+	/**
+	 * Finds every mode of an array of numbers, along with how often they occur.
+	 * @param userInputNumbers The array of numbers
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the array is empty
+	 */
+	public ModeResult findModes(double[] userInputNumbers) {
+		return findModes(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds every mode of a slice of an array of numbers, along with how often they
+	 * occur. Each piece is counted into its own table, and the tables are merged.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The modes, in ascending order, and their frequency
+	 * @throws StatsException if the slice is empty or out of range
+	 */
+	public ModeResult findModes(double[] userInputNumbers, int offset, int length) {
+		if (length <= splitSize) {
+			return serialMeasures.findModes(userInputNumbers, offset, length);
+		}
+		
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		
+		DoubleCountMap table = pool.invoke(new CountTask(userInputNumbers, offset, length, splitSize));
+		int frequency = table.maxCount();
+		
+		return new ModeResult(table.keysWithCount(frequency), frequency);
+	}
+	
+	/**
+	 * Finds the variance of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return The variance
+	 * @throws StatsException if the array does not contain at least two elements
+	 */
+	public double variance(double[] userInputNumbers) {
+		return variance(userInputNumbers, 0, userInputNumbers.length);
+	}
+	
+	/**
+	 * Finds the variance of a slice of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The variance
+	 * @throws StatsException if the slice does not contain at least two elements, or
+	 * if it is out of range
+	 */
+	public double variance(double[] userInputNumbers, int offset, int length) {
+		if (length <= splitSize) {
+			return serialMeasures.variance(userInputNumbers, offset, length);
+		}
+		
+		return moments(userInputNumbers, offset, length).variance();
+	}
+	
+	/**
+	 * Finds the standard deviation of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @return The standard deviation
+	 * @throws StatsException if the array does not contain at least two elements
+	 */
+	public double standardDeviation(double[] userInputNumbers) {
+		return Math.sqrt(variance(userInputNumbers));
+	}
+	
+	/**
+	 * Finds the standard deviation of a slice of an array of numbers.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The standard deviation
+	 * @throws StatsException if the slice does not contain at least two elements, or
+	 * if it is out of range
+	 */
+	public double standardDeviation(double[] userInputNumbers, int offset, int length) {
+		return Math.sqrt(variance(userInputNumbers, offset, length));
+	}
+	
+	/**
+	 * Reduces a slice to its count, mean, and sum of squared deviations in parallel.
+	 * @param userInputNumbers The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The merged moments of the whole slice
+	 * @throws StatsException if the slice is out of range
+	 */
+	public StreamingMoments moments(double[] userInputNumbers, int offset, int length) {
+		checkFor.sliceOutOfRange(userInputNumbers, offset, length);
+		
+		return pool.invoke(new MomentsTask(userInputNumbers, offset, length, splitSize));
+	}
+	
+	/**
+	 * Finds the moments of the values for each key in parallel. Each piece is reduced
+	 * into its own GroupedMoments, and the pieces are merged left to right.
+	 * @param keys The key of each value
+	 * @param values The values
+	 * @return The merged moments for every key
+	 * @throws StatsException if the arrays are not the same length
+	 */
+	public GroupedMoments groupedMoments(long[] keys, double[] values) {
+		checkFor.arraysNotEqualLength(keys.length, values.length);
+		
+		return pool.invoke(new GroupTask(keys, values, 0, values.length, splitSize));
+	}
+	
+	/**
+	 * Splits a slice in half until the pieces are small enough, reduces each piece
+	 * with StreamingMoments.addAll, and merges the left half with the right half.
+	 */
+	private static class MomentsTask extends RecursiveTask<StreamingMoments> {
+		private static final long serialVersionUID = 1L;
+		
+		private double[] values;
+		private int offset;
+		private int length;
+		private int splitSize;
+		
+		MomentsTask(double[] values, int offset, int length, int splitSize) {
+			this.values = values;
+			this.offset = offset;
+			this.length = length;
+			this.splitSize = splitSize;
+		}
+		
+		@Override
+		protected StreamingMoments compute() {
+			if (length <= splitSize) {
+				StreamingMoments piece = new StreamingMoments();
+				piece.addAll(values, offset, length);
+				
+				return piece;
+			}
+			
+			int half = length / 2;
+			MomentsTask left = new MomentsTask(values, offset, half, splitSize);
+			MomentsTask right = new MomentsTask(values, offset + half, length - half, splitSize);
+			
+			left.fork();
+			StreamingMoments rightResult = right.compute();
+			StreamingMoments leftResult = left.join();
+			
+			leftResult.merge(rightResult);
+			
+			return leftResult;
+		}
+	}
+	
+	/**
+	 * Splits a slice of (key, value) pairs in half until the pieces are small enough,
+	 * groups each piece into a GroupedMoments, and merges the right half into the left.
+	 */
+	private static class GroupTask extends RecursiveTask<GroupedMoments> {
+		private static final long serialVersionUID = 1L;
+		
+		private long[] keys;
+		private double[] values;
+		private int offset;
+		private int length;
+		private int splitSize;
+		
+		GroupTask(long[] keys, double[] values, int offset, int length, int splitSize) {
+			this.keys = keys;
+			this.values = values;
+			this.offset = offset;
+			this.length = length;
+			this.splitSize = splitSize;
+		}
+		
+		@Override
+		protected GroupedMoments compute() {
+			if (length <= splitSize) {
+				GroupedMoments piece = new GroupedMoments();
+				
+				for (int i = offset; i < offset + length; i++) {
+					piece.add(keys[i], values[i]);
+				}
+				
+				return piece;
+			}
+			
+			int half = length / 2;
+			GroupTask left = new GroupTask(keys, values, offset, half, splitSize);
+			GroupTask right = new GroupTask(keys, values, offset + half, length - half, splitSize);
+			
+			left.fork();
+			GroupedMoments rightResult = right.compute();
+			GroupedMoments leftResult = left.join();
+			
+			leftResult.merge(rightResult);
+			
+			return leftResult;
+		}
+	}
+	
+	/**
+	 * Splits a slice in half until the pieces are small enough, counts each piece
+	 * into a DoubleCountMap, and merges the right half's table into the left's.
+	 */
+	private static class CountTask extends RecursiveTask<DoubleCountMap> {
+		private static final long serialVersionUID = 1L;
+		
+		private double[] values;
+		private int offset;
+		private int length;
+		private int splitSize;
+		
+		CountTask(double[] values, int offset, int length, int splitSize) {
+			this.values = values;
+			this.offset = offset;
+			this.length = length;
+			this.splitSize = splitSize;
+		}
+		
+		@Override
+		protected DoubleCountMap compute() {
+			if (length <= splitSize) {
+				DoubleCountMap piece = new DoubleCountMap();
+				
+				for (int i = offset; i < offset + length; i++) {
+					piece.increment(values[i]);
+				}
+				
+				return piece;
+			}
+			
+			int half = length / 2;
+			CountTask left = new CountTask(values, offset, half, splitSize);
+			CountTask right = new CountTask(values, offset + half, length - half, splitSize);
+			
+			left.fork();
+			DoubleCountMap rightResult = right.compute();
+			DoubleCountMap leftResult = left.join();
+			
+			leftResult.merge(rightResult);
+			
+			return leftResult;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+
+/**
+ * One row of Pascal's triangle: the numbers of combinations C(n, r) for a fixed n and
+ * every r from 0 to n. The entries are computed only as they are asked for, each from
+ * the one before it with C(n, r) = C(n, r-1) * (n-r+1) / r, and are kept once they
+ * have been computed. Since C(n, r) = C(n, n-r), only the first half of the row is
+ * ever stored. <p>
+ * Callers that sweep r across a fixed n, such as a sum over the terms of a
+ * distribution, pay for one multiplication and one exact division per new entry,
+ * instead of computing every combination from scratch. A row is not safe to use from
+ * more than one thread at a time.
+ * 
+ * @author Ian Mays
+ */
+public class PascalRow {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private int n;
+	private ArrayList<BigInteger> entries = new ArrayList<>();
+	
+	/**
+	 * Constructs the row for a number of objects.
+	 * @param n The number of objects in the set
+	 * @throws StatsException if n is negative
+	 */
+	public PascalRow(int n) {
+		checkFor.negativeItems(n);
+		
+		this.n = n;
+		entries.add(BigInteger.ONE);
+	}
+	
+	/**
+	 * @return The number of objects in the set
+	 */
+	public int getN() {
+		return n;
+	}
+	
+	/**
+	 * Finds the number of combinations of r objects that can be taken from the set,
+	 * computing any entries of the row between the last one computed and this one.
+	 * @param r The number of objects to choose from the set
+	 * @return C(n, r)
+	 * @throws StatsException if r is negative, or if r > n
+	 */
+	public BigInteger get(int r) {
+		checkFor.negativeItems(r);
+		checkFor.tooManyItems(n, r);
+		
+		int k = Math.min(r, n - r);
+		
+		for (int i = entries.size(); i <= k; i++) {
+			entries.add(entries.get(i - 1).multiply(BigInteger.valueOf(n - i + 1)).divide(BigInteger.valueOf(i)));
+		}
+		
+		return entries.get(k);
+	}
+	
+	/**
+	 * @return Every entry of the row, C(n, 0) through C(n, n)
+	 */
+	public BigInteger[] toArray() {
+		BigInteger[] result = new BigInteger[n + 1];
+		
+		for (int r = 0; r <= n; r++) {
+			result[r] = get(r);
+		}
+		
+		return result;
+	}
+}
\ No newline at end of file
@@ -6,12 +6,13 @@
  * @author Ian Mays
  */
 public class PoissonDistribution {
-	private CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+	private LogCombinatorics logCombinatorics = new LogCombinatorics();
 	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
 	
 	/**
 	 * Calculates the probability of exactly a certain number of occurrences within
-	 * a given time period.
+	 * a given time period. The terms are added as logarithms and exponentiated once,
+	 * so neither lambda^y nor y! has to fit in a double.
 	 * @param lambda The average number of occurrences in a given time period
 	 * @param y The desired number of successes
 	 * @return The probability of exactly y events occurring during the time period
@@ -21,7 +22,7 @@ public class PoissonDistribution {
 		checkFor.negativeOccurrenceRate(lambda);
 		checkFor.negativeSuccesses(y);
 		
-		return Math.pow(lambda, y) / comsAndPerms.factorial(y).doubleValue() * Math.pow(Math.E, -lambda);
+		return Math.exp(logCombinatorics.xLogY(y, lambda) - logCombinatorics.logFactorial(y) - lambda);
 	}
 	
 	/**
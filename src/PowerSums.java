@@ -0,0 +1,98 @@
+/**
+ * The count, sum, sum of squares, minimum, and maximum of some numbers, as found in a
+ * single pass by SummaryKernel.summarize. Instances cannot be changed once they are
+ * made. <p>
+ * The variance here comes from the sum of squares, which loses precision when the
+ * mean is large compared to the spread of the values. NumericalMeasures.variance uses
+ * a second pass instead, and should be preferred when accuracy matters.
+ * 
+ * @author Ian Mays
+ */
+public class PowerSums {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private final long count;
+	private final double sum;
+	private final double sumOfSquares;
+	private final double min;
+	private final double max;
+	
+	/**
+	 * Constructs a new PowerSums.
+	 * @param count The number of values
+	 * @param sum The sum of the values
+	 * @param sumOfSquares The sum of the squares of the values
+	 * @param min The smallest value
+	 * @param max The largest value
+	 */
+	public PowerSums(long count, double sum, double sumOfSquares, double min, double max) {
+		this.count = count;
+		this.sum = sum;
+		this.sumOfSquares = sumOfSquares;
+		this.min = min;
+		this.max = max;
+	}
+	
+	/**
+	 * @return The number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * @return The sum of the values
+	 */
+	public double getSum() {
+		return sum;
+	}
+	
+	/**
+	 * @return The sum of the squares of the values
+	 */
+	public double getSumOfSquares() {
+		return sumOfSquares;
+	}
+	
+	/**
+	 * @return The smallest value
+	 * @throws StatsException if there are no values
+	 */
+	public double getMin() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return min;
+	}
+	
+	/**
+	 * @return The largest value
+	 * @throws StatsException if there are no values
+	 */
+	public double getMax() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return max;
+	}
+	
+	/**
+	 * @return The mean (average) of the values
+	 * @throws StatsException if there are no values
+	 */
+	public double findMean() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return sum / count;
+	}
+	
+	/**
+	 * Finds the (sample) variance from the sum and the sum of squares, dividing by one
+	 * less than the number of values.
+	 * @return The variance
+	 * @throws StatsException if there are fewer than two values
+	 */
+	public double variance() {
+		checkFor.lengthNotBigEnough(count, 2);
+		
+		return Math.max(0, sumOfSquares - sum * (sum / count)) / (count - 1);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+/**
+ * The primes up to a limit, found with the sieve of Eratosthenes. Only odd numbers
+ * are stored, one bit each, so a sieve up to n takes about n/16 bytes and
+ * O(n log log n) time to build. <p>
+ * Used by FactorialCalculator, which needs every prime up to n to build n! from its
+ * prime factorization.
+ * 
+ * @author Ian Mays
+ */
+public class PrimeSieve {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private int limit;
+	// bit i is set if 2i + 1 is composite
+	private long[] composite;
+	private int count;
+	
+	/**
+	 * Finds every prime up to a limit.
+	 * @param limit The largest number to check
+	 * @throws StatsException if limit is negative
+	 */
+	public PrimeSieve(int limit) {
+		checkFor.negativeItems(limit);
+		
+		this.limit = limit;
+		
+		int odds = (int) ((limit + 1L) / 2);
+		composite = new long[(odds + 63) / 64];
+		
+		if (odds > 0) {
+			// 1 is not prime
+			composite[0] |= 1L;
+		}
+		
+		for (long p = 3; p * p <= limit; p += 2) {
+			if (!isMarked((int) (p / 2))) {
+				for (long multiple = p * p; multiple <= limit; multiple += 2 * p) {
+					composite[(int) (multiple / 2) >>> 6] |= 1L << (multiple / 2);
+				}
+			}
+		}
+		
+		count = limit >= 2 ? 1 : 0;
+		for (int i = 0; i < odds; i++) {
+			if (!isMarked(i)) {
+				count++;
+			}
+		}
+	}
+	
+	/**
+	 * @return The largest number that was checked
+	 */
+	public int getLimit() {
+		return limit;
+	}
+	
+	/**
+	 * @return The number of primes up to the limit
+	 */
+	public int count() {
+		return count;
+	}
+	
+	/**
+	 * @param n The number to check, between 0 and the limit
+	 * @return Whether n is prime
+	 * @throws StatsException if n is negative or larger than the limit
+	 */
+	public boolean isPrime(int n) {
+		checkFor.rankOutOfRange(limit + 1L, n);
+		
+		if (n % 2 == 0) {
+			return n == 2;
+		}
+		
+		return !isMarked(n / 2);
+	}
+	
+	/**
+	 * @return Every prime up to the limit, in ascending order
+	 */
+	public int[] primes() {
+		int[] result = new int[count];
+		int next = 0;
+		
+		if (limit >= 2) {
+			result[next++] = 2;
+		}
+		
+		int odds = (int) ((limit + 1L) / 2);
+		for (int i = 0; i < odds; i++) {
+			if (!isMarked(i)) {
+				result[next++] = 2 * i + 1;
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * @param i The index of an odd number, which is 2i + 1
+	 * @return Whether that number has been marked as composite
+	 */
+	private boolean isMarked(int i) {
+		return (composite[i >>> 6] & (1L << i)) != 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplies many integers together by binary splitting: the factors are split in
+ * half, each half is multiplied on its own, and the two products are multiplied at
+ * the end. Multiplying the factors one at a time costs O(n^2) in the bit length of
+ * the answer, because every step multiplies a huge product by a tiny factor; the
+ * tree instead multiplies numbers of about the same size at every level, which is
+ * where BigInteger's Karatsuba and Toom-Cook multiplication pay off. <p>
+ * Before the tree is built, neighbouring factors are multiplied together as longs for
+ * as long as their product fits, so the leaves of the tree are already 63-bit
+ * numbers. Halves with more than a threshold number of leaves are multiplied in
+ * parallel on a ForkJoinPool; the shape of the tree depends only on the factors, so
+ * the answer is the same no matter how many threads do the work.
+ * 
+ * @author Ian Mays
+ */
+public class ProductTree {
+	/**
+	 * The number of leaves above which the two halves of a product are multiplied in
+	 * parallel, used by the constructors that do not take a threshold.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 10;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	private ForkJoinPool pool;
+	private int parallelThreshold;
+	
+	/**
+	 * Constructs a new ProductTree that runs on the common ForkJoinPool.
+	 */
+	public ProductTree() {
+		this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+	}
+	
+	/**
+	 * Constructs a new ProductTree.
+	 * @param pool The pool to multiply large halves on
+	 * @param parallelThreshold The number of leaves above which the halves of a
+	 * product are multiplied in parallel
+	 * @throws StatsException if parallelThreshold is not positive
+	 */
+	public ProductTree(ForkJoinPool pool, int parallelThreshold) {
+		checkFor.nonPositiveSize(parallelThreshold);
+		
+		this.pool = pool;
+		this.parallelThreshold = parallelThreshold;
+	}
+	
+	/**
+	 * Multiplies every number in an array.
+	 * @param factors The numbers to multiply
+	 * @return The product, which is 1 if the array is empty
+	 */
+	public BigInteger product(long[] factors) {
+		return product(factors, 0, factors.length);
+	}
+	
+	/**
+	 * Multiplies every number in a slice of an array.
+	 * @param factors The numbers to multiply
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The product, which is 1 if the slice is empty
+	 */
+	public BigInteger product(long[] factors, int offset, int length) {
+		// every leaf holds at least one factor, and there is always at least one leaf
+		BigInteger[] leaves = new BigInteger[Math.max(1, length)];
+		int leafCount = 0;
+		long packed = 1;
+		
+		for (int i = offset; i < offset + length; i++) {
+			long factor = factors[i];
+			long high = Math.multiplyHigh(packed, factor);
+			long low = packed * factor;
+			
+			if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+				packed = low;
+			} else {
+				leaves[leafCount++] = BigInteger.valueOf(packed);
+				packed = factor;
+			}
+		}
+		
+		leaves[leafCount++] = BigInteger.valueOf(packed);
+		
+		return multiplyLeaves(leaves, leafCount);
+	}
+	
+	/**
+	 * Multiplies every integer from low to high, inclusive.
+	 * @param low The first factor
+	 * @param high The last factor
+	 * @return low * (low + 1) * ... * high, which is 1 if low > high
+	 * @throws StatsException if low is not positive
+	 */
+	public BigInteger productOfRange(long low, long high) {
+		checkFor.nonPositiveSize(low);
+		
+		if (low > high) {
+			return BigInteger.ONE;
+		}
+		
+		BigInteger[] leaves = new BigInteger[(int) Math.min(high - low + 1, Integer.MAX_VALUE - 8)];
+		int leafCount = 0;
+		long packed = 1;
+		
+		for (long factor = low; factor <= high; factor++) {
+			if (Math.multiplyHigh(packed, factor) == 0 && packed * factor >= 0) {
+				packed *= factor;
+			} else {
+				leaves[leafCount++] = BigInteger.valueOf(packed);
+				packed = factor;
+			}
+		}
+		
+		leaves[leafCount++] = BigInteger.valueOf(packed);
+		
+		return multiplyLeaves(leaves, leafCount);
+	}
+	
+	/**
+	 * Multiplies the first leafCount leaves together, in parallel if there are enough.
+	 * @param leaves The leaves of the tree
+	 * @param leafCount The number of leaves
+	 * @return The product of the leaves
+	 */
+	private BigInteger multiplyLeaves(BigInteger[] leaves, int leafCount) {
+		if (leafCount <= parallelThreshold) {
+			return multiplyRange(leaves, 0, leafCount);
+		}
+		
+		return pool.invoke(new ProductTask(leaves, 0, leafCount, parallelThreshold));
+	}
+	
+	/**
+	 * Multiplies leaves[from, to) by binary splitting on the calling thread.
+	 * @param leaves The leaves of the tree
+	 * @param from The first leaf (inclusive)
+	 * @param to The last leaf (exclusive)
+	 * @return The product of the leaves
+	 */
+	private static BigInteger multiplyRange(BigInteger[] leaves, int from, int to) {
+		if (to - from == 1) {
+			return leaves[from];
+		}
+		
+		if (to - from == 2) {
+			return leaves[from].multiply(leaves[from + 1]);
+		}
+		
+		int middle = (from + to) >>> 1;
+		
+		return multiplyRange(leaves, from, middle).multiply(multiplyRange(leaves, middle, to));
+	}
+	
+	/**
+	 * Splits a range of leaves in half until the pieces are small enough, multiplies
+	 * each piece with multiplyRange, and multiplies the left half by the right half.
+	 */
+	private static class ProductTask extends RecursiveTask<BigInteger> {
+		private static final long serialVersionUID = 1L;
+		
+		private BigInteger[] leaves;
+		private int from;
+		private int to;
+		private int parallelThreshold;
+		
+		ProductTask(BigInteger[] leaves, int from, int to, int parallelThreshold) {
+			this.leaves = leaves;
+			this.from = from;
+			this.to = to;
+			this.parallelThreshold = parallelThreshold;
+		}
+		
+		@Override
+		protected BigInteger compute() {
+			if (to - from <= parallelThreshold) {
+				return multiplyRange(leaves, from, to);
+			}
+			
+			int middle = (from + to) >>> 1;
+			ProductTask left = new ProductTask(leaves, from, middle, parallelThreshold);
+			ProductTask right = new ProductTask(leaves, middle, to, parallelThreshold);
+			
+			left.fork();
+			BigInteger rightResult = right.compute();
+			BigInteger leftResult = left.join();
+			
+			return leftResult.multiply(rightResult);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,468 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A KLL sketch for estimating quantiles of a stream of numbers that is too big, or too
+ * long-lived, to keep in memory. The sketch keeps a stack of sorted "levels". Every
+ * value starts on level 0 with a weight of one. When a level fills up, it is sorted
+ * and every other value (starting at a random one of the first two) is promoted to
+ * the next level with twice the weight, while the rest are thrown away. Lower levels
+ * get smaller as the stack grows, so the sketch never holds more than about 3k values
+ * no matter how many have been added. <p>
+ * Error guarantee: for the default k = 200, an estimated quantile has a rank within
+ * about 1.65% of n of the requested rank, with 99% confidence. In general the
+ * normalized rank error shrinks in proportion to about 1/k. Until the first level
+ * fills up (fewer than k values) nothing has been thrown away, and every answer is
+ * exact. <p>
+ * Quantiles are read the same way as OrderStatistics does it, by interpolating
+ * linearly between ranks floor((n-1)*q) and the one above it, so findMedian() on a
+ * sketch answers the same question as NumericalMeasures.findMedian on the full data.
+ * Two sketches can be merged, and a sketch can be turned into a compact byte array and
+ * back, so sketches built on many workers can be combined in one place.
+ * 
+ * @author Ian Mays
+ */
+public class QuantileSketch {
+	/**
+	 * The accuracy parameter used by the no-argument constructor.
+	 */
+	public static final int DEFAULT_K = 200;
+	
+	private static final int MIN_LEVEL_CAPACITY = 8;
+	private static final double LEVEL_SHRINK_FACTOR = 2.0 / 3;
+	private static final int SERIAL_MAGIC = 0x4B4C4C31;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	// seeded differently for every sketch, so that sketches built on different
+	// workers make independent coin flips and their errors do not line up when merged
+	private SplittableRandom random = new SplittableRandom();
+	
+	private int k;
+	private long n = 0;
+	private double min = Double.NaN;
+	private double max = Double.NaN;
+	private double[][] levels;
+	private int[] levelSizes;
+	private int levelCount = 1;
+	
+	/**
+	 * Constructs an empty sketch with the default accuracy.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+	
+	/**
+	 * Constructs an empty sketch.
+	 * @param k The accuracy parameter; larger values are more accurate but keep more
+	 * values. Must be at least 8.
+	 * @throws StatsException if k is less than 8
+	 */
+	public QuantileSketch(int k) {
+		checkFor.sketchParameterTooSmall(k, MIN_LEVEL_CAPACITY);
+		
+		this.k = k;
+		levels = new double[][] {new double[k]};
+		levelSizes = new int[1];
+	}
+	
+	/**
+	 * Constructs an empty sketch whose coin flips come from a fixed seed, so that the
+	 * same values added in the same order always give the same estimates. Sketches
+	 * that will be merged should be given different seeds.
+	 * @param k The accuracy parameter, at least 8
+	 * @param seed The seed for the sketch's coin flips
+	 * @throws StatsException if k is less than 8
+	 */
+	public QuantileSketch(int k, long seed) {
+		this(k);
+		
+		random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Reconstructs a sketch from the output of toBytes().
+	 * @param serialized The serialized sketch
+	 * @throws StatsException if the bytes are not a serialized sketch
+	 */
+	public QuantileSketch(byte[] serialized) {
+		ByteBuffer buffer = ByteBuffer.wrap(serialized);
+		
+		try {
+			checkFor.invalidSerializedForm(buffer.getInt() == SERIAL_MAGIC);
+			
+			k = buffer.getInt();
+			n = buffer.getLong();
+			min = buffer.getDouble();
+			max = buffer.getDouble();
+			levelCount = buffer.getInt();
+			checkFor.invalidSerializedForm(k >= MIN_LEVEL_CAPACITY && n >= 0 && levelCount >= 1 && levelCount <= 64);
+			
+			levels = new double[levelCount][];
+			levelSizes = new int[levelCount];
+			
+			for (int h = 0; h < levelCount; h++) {
+				levelSizes[h] = buffer.getInt();
+				checkFor.invalidSerializedForm(levelSizes[h] >= 0 && levelSizes[h] <= buffer.remaining() / 8);
+				
+				levels[h] = new double[Math.max(levelSizes[h], levelCapacity(h))];
+				buffer.asDoubleBuffer().get(levels[h], 0, levelSizes[h]);
+				buffer.position(buffer.position() + 8 * levelSizes[h]);
+			}
+		} catch (BufferUnderflowException e) {
+			checkFor.invalidSerializedForm(false);
+		}
+	}
+	
+	/**
+	 * Adds a value to the sketch.
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		
+		if (n == 0) {
+			min = value;
+			max = value;
+		} else {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		
+		n++;
+		
+		append(0, value);
+		
+		// only level 0 can have filled up, so the full check is rarely needed
+		if (levelSizes[0] >= levelCapacity(0)) {
+			compress();
+		}
+	}
+	
+	/**
+	 * Adds every value in an array to the sketch.
+	 * @param values The array of values
+	 */
+	public void addAll(double[] values) {
+		for (double value : values) {
+			add(value);
+		}
+	}
+	
+	/**
+	 * Merges another sketch into this one. The other sketch is not changed. The
+	 * merged sketch has the accuracy of the less accurate of the two.
+	 * @param other The sketch to merge in
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.n == 0) {
+			return;
+		}
+		
+		if (n == 0) {
+			min = other.min;
+			max = other.max;
+		} else {
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+		}
+		
+		n += other.n;
+		k = Math.min(k, other.k);
+		
+		for (int h = 0; h < other.levelCount; h++) {
+			for (int i = 0; i < other.levelSizes[h]; i++) {
+				append(h, other.levels[h][i]);
+			}
+		}
+		
+		compress();
+	}
+	
+	/**
+	 * @return The number of values added to the sketch, not counting NaN values,
+	 * which are ignored
+	 */
+	public long getCount() {
+		return n;
+	}
+	
+	/**
+	 * @return The number of values the sketch is currently holding
+	 */
+	public int getRetainedCount() {
+		int total = 0;
+		
+		for (int h = 0; h < levelCount; h++) {
+			total += levelSizes[h];
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * @return The smallest value added
+	 * @throws StatsException if the sketch is empty
+	 */
+	public double getMin() {
+		checkFor.lengthNotBigEnough(n, 1);
+		
+		return min;
+	}
+	
+	/**
+	 * @return The largest value added
+	 * @throws StatsException if the sketch is empty
+	 */
+	public double getMax() {
+		checkFor.lengthNotBigEnough(n, 1);
+		
+		return max;
+	}
+	
+	/**
+	 * Estimates the median of the values added so far.
+	 * @return The estimated median
+	 * @throws StatsException if the sketch is empty
+	 */
+	public double findMedian() {
+		return quantile(0.5);
+	}
+	
+	/**
+	 * Estimates a quantile of the values added so far.
+	 * @param q The quantile, between 0 and 1
+	 * @return The estimated q quantile
+	 * @throws StatsException if the sketch is empty, or if q is not between 0 and 1
+	 */
+	public double quantile(double q) {
+		return quantiles(new double[] {q})[0];
+	}
+	
+	/**
+	 * Estimates several quantiles of the values added so far, sorting the sketch only
+	 * once.
+	 * @param qs The quantiles, each between 0 and 1, in any order
+	 * @return The estimate of each quantile, in the same order as qs
+	 * @throws StatsException if the sketch is empty, or if any quantile is not between
+	 * 0 and 1
+	 */
+	public double[] quantiles(double[] qs) {
+		checkFor.lengthNotBigEnough(n, 1);
+		for (double q : qs) {
+			checkFor.quantileOutOfRange(q);
+		}
+		
+		int retained = getRetainedCount();
+		double[] sortedValues = new double[retained];
+		long[] cumulativeWeights = new long[retained];
+		sortedView(sortedValues, cumulativeWeights);
+		
+		double[] result = new double[qs.length];
+		
+		for (int i = 0; i < qs.length; i++) {
+			double position = (n - 1) * qs[i];
+			long lowerRank = (long) Math.floor(position);
+			double fraction = position - lowerRank;
+			double lowerValue = valueAtRank(sortedValues, cumulativeWeights, lowerRank);
+			
+			if (fraction == 0) {
+				result[i] = lowerValue;
+			} else {
+				double upperValue = valueAtRank(sortedValues, cumulativeWeights, lowerRank + 1);
+				result[i] = lowerValue + fraction * (upperValue - lowerValue);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Estimates the fraction of the values added so far that are less than or equal to
+	 * a given value.
+	 * @param value The value
+	 * @return The estimated fraction, between 0 and 1
+	 * @throws StatsException if the sketch is empty
+	 */
+	public double rank(double value) {
+		checkFor.lengthNotBigEnough(n, 1);
+		
+		long weight = 0;
+		
+		for (int h = 0; h < levelCount; h++) {
+			for (int i = 0; i < levelSizes[h]; i++) {
+				if (levels[h][i] <= value) {
+					weight += 1L << h;
+				}
+			}
+		}
+		
+		return (double) weight / n;
+	}
+	
+	/**
+	 * Serializes the sketch into a compact byte array, which holds only the retained
+	 * values and a small header.
+	 * @return The serialized sketch
+	 */
+	public byte[] toBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(36 + 4 * levelCount + 8 * getRetainedCount());
+		
+		buffer.putInt(SERIAL_MAGIC);
+		buffer.putInt(k);
+		buffer.putLong(n);
+		buffer.putDouble(min);
+		buffer.putDouble(max);
+		buffer.putInt(levelCount);
+		
+		for (int h = 0; h < levelCount; h++) {
+			buffer.putInt(levelSizes[h]);
+			
+			for (int i = 0; i < levelSizes[h]; i++) {
+				buffer.putDouble(levels[h][i]);
+			}
+		}
+		
+		return buffer.array();
+	}
+	
+	/**
+	 * Finds the capacity of a level. The top level holds k values, and each level below
+	 * it holds 2/3 as many as the one above, down to a minimum of 8.
+	 * @param h The level
+	 * @return The number of values the level can hold before it must be compacted
+	 */
+	private int levelCapacity(int h) {
+		int depth = levelCount - 1 - h;
+		
+		return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(LEVEL_SHRINK_FACTOR, depth)));
+	}
+	
+	/**
+	 * Adds a value to a level, creating the level or growing its array if needed.
+	 * @param h The level
+	 * @param value The value
+	 */
+	private void append(int h, double value) {
+		if (h >= levelCount) {
+			if (h >= levels.length) {
+				levels = Arrays.copyOf(levels, h + 1);
+				levelSizes = Arrays.copyOf(levelSizes, h + 1);
+			}
+			
+			for (int newLevel = levelCount; newLevel <= h; newLevel++) {
+				levels[newLevel] = new double[MIN_LEVEL_CAPACITY];
+				levelSizes[newLevel] = 0;
+			}
+			
+			levelCount = h + 1;
+		}
+		
+		if (levelSizes[h] == levels[h].length) {
+			levels[h] = Arrays.copyOf(levels[h], Math.max(2 * levels[h].length, MIN_LEVEL_CAPACITY));
+		}
+		
+		levels[h][levelSizes[h]++] = value;
+	}
+	
+	/**
+	 * Compacts the lowest full level, again and again, until every level is within its
+	 * capacity.
+	 */
+	private void compress() {
+		boolean compacted = true;
+		
+		while (compacted) {
+			compacted = false;
+			
+			for (int h = 0; h < levelCount; h++) {
+				if (levelSizes[h] >= levelCapacity(h)) {
+					compact(h);
+					compacted = true;
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Sorts a level and promotes every other value to the next level up, keeping one
+	 * value behind if there is an odd number of them.
+	 * @param h The level to compact
+	 */
+	private void compact(int h) {
+		double[] level = levels[h];
+		int size = levelSizes[h];
+		Arrays.sort(level, 0, size);
+		
+		int start = size % 2;
+		int offset = random.nextInt(2);
+		
+		for (int i = start + offset; i < size; i += 2) {
+			append(h + 1, level[i]);
+		}
+		
+		// append() may have replaced the array for level h + 1, but never for level h
+		levelSizes[h] = start;
+	}
+	
+	/**
+	 * Merges every level into one sorted list of values, along with the total weight
+	 * of all values up to and including each one.
+	 * @param sortedValues Filled with the retained values in ascending order
+	 * @param cumulativeWeights Filled with the running total of weights
+	 */
+	private void sortedView(double[] sortedValues, long[] cumulativeWeights) {
+		int[] positions = new int[levelCount];
+		
+		for (int h = 0; h < levelCount; h++) {
+			Arrays.sort(levels[h], 0, levelSizes[h]);
+		}
+		
+		long total = 0;
+		
+		for (int i = 0; i < sortedValues.length; i++) {
+			int smallestLevel = -1;
+			
+			for (int h = 0; h < levelCount; h++) {
+				if (positions[h] < levelSizes[h] && (smallestLevel < 0 || levels[h][positions[h]] < levels[smallestLevel][positions[smallestLevel]])) {
+					smallestLevel = h;
+				}
+			}
+			
+			sortedValues[i] = levels[smallestLevel][positions[smallestLevel]++];
+			total += 1L << smallestLevel;
+			cumulativeWeights[i] = total;
+		}
+	}
+	
+	/**
+	 * Finds the value that covers a given rank, where a value of weight w covers w
+	 * consecutive ranks. The lowest and highest ranks are pinned to the exact minimum
+	 * and maximum.
+	 * @param sortedValues The retained values in ascending order
+	 * @param cumulativeWeights The running total of weights
+	 * @param rank The rank, starting at zero
+	 * @return The value at that rank
+	 */
+	private double valueAtRank(double[] sortedValues, long[] cumulativeWeights, long rank) {
+		if (rank <= 0) {
+			return min;
+		}
+		
+		if (rank >= n - 1) {
+			return max;
+		}
+		
+		int index = Arrays.binarySearch(cumulativeWeights, rank + 1);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		
+		return sortedValues[Math.min(index, sortedValues.length - 1)];
+	}
+}
\ No newline at end of file
@@ -0,0 +1,362 @@
+/**
+ * Keeps the mean, variance, and median of the most recent N values of a stream. The
+ * values live in a fixed-size ring buffer; once it is full, each new value replaces
+ * the oldest one. <p>
+ * The mean and the sum of squared deviations are updated in O(1) per value. While the
+ * window is filling this uses Welford's update; after that, replacing value x with x'
+ * moves the mean by (x' - x)/N and the sum of squared deviations by
+ * (x' - x)(x' - newMean + x - oldMean). To stop rounding errors from building up,
+ * both are recomputed exactly from the buffer once every N replacements, which is
+ * still O(1) per value on average. A NaN or infinite value makes the incremental
+ * update NaN for good, so both are also recomputed as soon as the last such value
+ * leaves the window. <p>
+ * The median is kept with two heaps of buffer slots: a max-heap holding the smaller
+ * half of the window and a min-heap holding the larger half. Each slot remembers
+ * where it sits in its heap, so the oldest value can be replaced in place and sifted
+ * to its new position in O(log N), and the median is read from the tops of the heaps
+ * in O(1). Values are ordered like Double.compare, so NaN counts as the largest value.
+ * 
+ * @author Ian Mays
+ */
+public class RollingWindow {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private double[] ring;
+	private int size = 0;
+	private int oldest = 0;
+	
+	private double mean = 0;
+	private double sumOfSquaredDeviations = 0;
+	private int replacementsSinceRecompute = 0;
+	private int nonFiniteCount = 0;
+	
+	// lowerHeap is a max-heap and upperHeap a min-heap, both holding indices into ring
+	private int[] lowerHeap;
+	private int[] upperHeap;
+	private int lowerSize = 0;
+	private int upperSize = 0;
+	private boolean[] inLowerHeap;
+	private int[] heapPosition;
+	
+	/**
+	 * Constructs an empty window.
+	 * @param capacity The number of most recent values to keep
+	 * @throws StatsException if capacity is not positive
+	 */
+	public RollingWindow(int capacity) {
+		checkFor.nonPositiveSize(capacity);
+		
+		ring = new double[capacity];
+		lowerHeap = new int[capacity];
+		upperHeap = new int[capacity];
+		inLowerHeap = new boolean[capacity];
+		heapPosition = new int[capacity];
+	}
+	
+	/**
+	 * Adds a value to the window. If the window is full, the oldest value is removed.
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		if (!Double.isFinite(value)) {
+			nonFiniteCount++;
+		}
+		
+		if (size < ring.length) {
+			int slot = size;
+			ring[slot] = value;
+			size++;
+			
+			double deviation = value - mean;
+			mean += deviation / size;
+			sumOfSquaredDeviations += deviation * (value - mean);
+			
+			insertIntoHeaps(slot);
+		} else {
+			int slot = oldest;
+			double oldValue = ring[slot];
+			ring[slot] = value;
+			
+			if (!Double.isFinite(oldValue)) {
+				nonFiniteCount--;
+			}
+			oldest = (oldest + 1) % ring.length;
+			
+			replaceMoments(oldValue, value);
+			replaceInHeaps(slot);
+		}
+	}
+	
+	/**
+	 * @return The number of values currently in the window
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * @return The largest number of values the window can hold
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+	
+	/**
+	 * @return Whether the window has reached its capacity
+	 */
+	public boolean isFull() {
+		return size == ring.length;
+	}
+	
+	/**
+	 * Finds the mean (average) of the values in the window.
+	 * @return The mean
+	 * @throws StatsException if the window is empty
+	 */
+	public double findMean() {
+		checkFor.lengthNotBigEnough(size, 1);
+		
+		return mean;
+	}
+	
+	/**
+	 * Finds the (sample) variance of the values in the window, dividing by one less
+	 * than the number of values, just like NumericalMeasures.variance.
+	 * @return The variance
+	 * @throws StatsException if the window holds fewer than two values
+	 */
+	public double variance() {
+		checkFor.lengthNotBigEnough(size, 2);
+		
+		return Math.max(0, sumOfSquaredDeviations) / (size - 1);
+	}
+	
+	/**
+	 * Finds the standard deviation of the values in the window.
+	 * @return The standard deviation
+	 * @throws StatsException if the window holds fewer than two values
+	 */
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+	
+	/**
+	 * Finds the median of the values in the window. If there is an even number of
+	 * values, the median is the average of the middle two values.
+	 * @return The median
+	 * @throws StatsException if the window is empty
+	 */
+	public double findMedian() {
+		checkFor.lengthNotBigEnough(size, 1);
+		
+		if (lowerSize > upperSize) {
+			return ring[lowerHeap[0]];
+		}
+		
+		return (ring[lowerHeap[0]] + ring[upperHeap[0]]) / 2;
+	}
+	
+	/**
+	 * Copies the values in the window, from oldest to newest.
+	 * @return The values in the window
+	 */
+	public double[] toArray() {
+		double[] result = new double[size];
+		
+		for (int i = 0; i < size; i++) {
+			result[i] = ring[(oldest + i) % ring.length];
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Updates the mean and sum of squared deviations when one value in a full window
+	 * is replaced by another, recomputing them exactly every so often, and right away
+	 * if they are no longer finite but every value in the window is.
+	 * @param oldValue The value leaving the window
+	 * @param newValue The value entering the window
+	 */
+	private void replaceMoments(double oldValue, double newValue) {
+		replacementsSinceRecompute++;
+		
+		boolean stuckOnNonFinite = nonFiniteCount == 0 && !(Double.isFinite(oldValue) && Double.isFinite(mean) && Double.isFinite(sumOfSquaredDeviations));
+		
+		if (replacementsSinceRecompute >= ring.length || stuckOnNonFinite) {
+			replacementsSinceRecompute = 0;
+			
+			double sum = 0;
+			for (double singleElement : ring) {
+				sum += singleElement;
+			}
+			
+			mean = sum / size;
+			
+			sumOfSquaredDeviations = 0;
+			for (double singleElement : ring) {
+				double deviation = singleElement - mean;
+				sumOfSquaredDeviations += deviation * deviation;
+			}
+			
+			return;
+		}
+		
+		double oldMean = mean;
+		double change = newValue - oldValue;
+		
+		mean += change / size;
+		sumOfSquaredDeviations += change * (newValue - mean + oldValue - oldMean);
+	}
+	
+	/**
+	 * Puts a newly filled slot into the correct heap and rebalances the heaps so that
+	 * the lower heap has the same number of values as the upper heap, or one more.
+	 * @param slot The slot in the ring buffer
+	 */
+	private void insertIntoHeaps(int slot) {
+		if (lowerSize == 0 || Double.compare(ring[slot], ring[lowerHeap[0]]) <= 0) {
+			push(true, slot);
+		} else {
+			push(false, slot);
+		}
+		
+		if (lowerSize > upperSize + 1) {
+			push(false, popTop(true));
+		} else if (upperSize > lowerSize) {
+			push(true, popTop(false));
+		}
+	}
+	
+	/**
+	 * Moves a slot whose value has just changed to its new place in the heaps. Only the
+	 * tops of the two heaps can end up out of order with each other, and swapping them
+	 * once is enough to fix it.
+	 * @param slot The slot in the ring buffer
+	 */
+	private void replaceInHeaps(int slot) {
+		boolean lower = inLowerHeap[slot];
+		int position = siftUp(lower, heapPosition[slot]);
+		siftDown(lower, position);
+		
+		if (upperSize > 0 && Double.compare(ring[lowerHeap[0]], ring[upperHeap[0]]) > 0) {
+			int lowerTop = lowerHeap[0];
+			int upperTop = upperHeap[0];
+			
+			place(true, 0, upperTop);
+			place(false, 0, lowerTop);
+			
+			siftDown(true, 0);
+			siftDown(false, 0);
+		}
+	}
+	
+	/**
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @param slot The slot to add
+	 */
+	private void push(boolean lower, int slot) {
+		int position = lower ? lowerSize++ : upperSize++;
+		place(lower, position, slot);
+		siftUp(lower, position);
+	}
+	
+	/**
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @return The slot that was at the top of the heap
+	 */
+	private int popTop(boolean lower) {
+		int[] heap = lower ? lowerHeap : upperHeap;
+		int top = heap[0];
+		int last = lower ? --lowerSize : --upperSize;
+		
+		if (last > 0) {
+			place(lower, 0, heap[last]);
+			siftDown(lower, 0);
+		}
+		
+		return top;
+	}
+	
+	/**
+	 * Moves the slot at a heap position up until its parent should come before it.
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @param position The starting position in the heap
+	 * @return The final position
+	 */
+	private int siftUp(boolean lower, int position) {
+		int[] heap = lower ? lowerHeap : upperHeap;
+		int slot = heap[position];
+		
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			
+			if (!comesBefore(lower, slot, heap[parent])) {
+				break;
+			}
+			
+			place(lower, position, heap[parent]);
+			position = parent;
+		}
+		
+		place(lower, position, slot);
+		
+		return position;
+	}
+	
+	/**
+	 * Moves the slot at a heap position down until neither child should come before
+	 * it.
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @param position The starting position in the heap
+	 */
+	private void siftDown(boolean lower, int position) {
+		int[] heap = lower ? lowerHeap : upperHeap;
+		int heapSize = lower ? lowerSize : upperSize;
+		int slot = heap[position];
+		
+		while (2 * position + 1 < heapSize) {
+			int child = 2 * position + 1;
+			
+			if (child + 1 < heapSize && comesBefore(lower, heap[child + 1], heap[child])) {
+				child++;
+			}
+			
+			if (!comesBefore(lower, heap[child], slot)) {
+				break;
+			}
+			
+			place(lower, position, heap[child]);
+			position = child;
+		}
+		
+		place(lower, position, slot);
+	}
+	
+	/**
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @param position The position in the heap
+	 * @param slot The slot to store there
+	 */
+	private void place(boolean lower, int position, int slot) {
+		if (lower) {
+			lowerHeap[position] = slot;
+		} else {
+			upperHeap[position] = slot;
+		}
+		
+		inLowerHeap[slot] = lower;
+		heapPosition[slot] = position;
+	}
+	
+	/**
+	 * @param lower Whether to use the lower (max) heap or the upper (min) heap
+	 * @param slotA The first slot
+	 * @param slotB The second slot
+	 * @return Whether slotA belongs strictly nearer the top of the heap than slotB
+	 */
+	private boolean comesBefore(boolean lower, int slotA, int slotB) {
+		int comparison = Double.compare(ring[slotA], ring[slotB]);
+		
+		return lower ? comparison > 0 : comparison < 0;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+/**
+ * A measure that can be computed from a slice of an array, such as the mean or the
+ * median. The slice versions of NumericalMeasures fit this shape, so any of them can
+ * be passed as a method reference, for example measures::findMean. Bootstrap hands
+ * each statistic a scratch buffer that it is free to reorder, so the in-place
+ * methods of OrderStatistics, like orderStatistics::medianInPlace, fit too and avoid
+ * a copy.
+ * 
+ * @author Ian Mays
+ */
+@FunctionalInterface
+public interface SampleStatistic {
+	/**
+	 * @param values The array of numbers
+	 * @param offset The index of the first number in the slice
+	 * @param length The number of values in the slice
+	 * @return The statistic for the slice
+	 */
+	double compute(double[] values, int offset, int length);
+}
\ No newline at end of file
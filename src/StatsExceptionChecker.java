@@ -124,6 +124,17 @@ public class StatsExceptionChecker {
 		}
 	}
 	
+	/**
+	 * @param length1 The length of the first array
+	 * @param length2 The length of the second array
+	 * @throws StatsException The lengths are different
+	 */
+	public void arraysNotEqualLength(int length1, int length2) {
+		if (length1 != length2) {
+			throw new StatsException("Arrays must be of equal length");
+		}
+	}
+	
 	/**
 	 * @param userInputNumbers The ArrayList to check
 	 * @param minSize The minimum array size
@@ -135,6 +146,299 @@ public class StatsExceptionChecker {
 		}
 	}
 	
+	/**
+	 * @param length The number of values available
+	 * @param minSize The minimum number of values
+	 * @throws StatsException if there are not enough values
+	 */
+	public void lengthNotBigEnough(long length, int minSize) {
+		if (length < minSize) {
+			throw new StatsException("Data must have length of at least " + minSize);
+		}
+	}
+	
+	/**
+	 * @param size A size, such as a capacity or a block size
+	 * @throws StatsException if size is zero or negative
+	 */
+	public void nonPositiveSize(long size) {
+		if (size <= 0) {
+			throw new StatsException("Size must be positive, but was " + size);
+		}
+	}
+	
+	/**
+	 * @param array The array being sliced
+	 * @param offset The index of the first element in the slice
+	 * @param length The number of elements in the slice
+	 * @throws StatsException if the slice does not lie entirely within the array
+	 */
+	public void sliceOutOfRange(double[] array, int offset, int length) {
+		if (offset < 0 || length < 0 || offset > array.length - length) {
+			throw new StatsException("Slice of length " + length + " at offset " + offset + " is out of range for array of length " + array.length);
+		}
+	}
+	
+	/**
+	 * @param length The number of values
+	 * @param k The rank of a value, starting at zero
+	 * @throws StatsException if k is not in the range 0 ≤ k < length
+	 */
+	public void rankOutOfRange(long length, long k) {
+		if (k < 0 || k >= length) {
+			throw new StatsException("Rank " + k + " must be between 0 and " + (length-1) + ", inclusive");
+		}
+	}
+	
+	/**
+	 * @param q The quantile
+	 * @throws StatsException if q is not in the range 0 ≤ q ≤ 1
+	 */
+	public void quantileOutOfRange(double q) {
+		if (!(q >= 0 && q <= 1)) {
+			throw new StatsException("Invalid quantile " + q + "; must be between 0 and 1, inclusive");
+		}
+	}
+	
+	/**
+	 * @param k The accuracy parameter of a sketch
+	 * @param minK The smallest allowed accuracy parameter
+	 * @throws StatsException if k is less than minK
+	 */
+	public void sketchParameterTooSmall(int k, int minK) {
+		if (k < minK) {
+			throw new StatsException("Sketch parameter " + k + " must be at least " + minK);
+		}
+	}
+	
+	/**
+	 * @param valid Whether the serialized data passed a consistency check
+	 * @throws StatsException if the data did not pass
+	 */
+	public void invalidSerializedForm(boolean valid) {
+		if (!valid) {
+			throw new StatsException("Serialized data is truncated or corrupt");
+		}
+	}
+	
+	/**
+	 * @param chunkSize The number of doubles in one chunk of a file mapping
+	 * @throws StatsException if the chunk would be larger than a single mapping allows
+	 */
+	public void chunkTooLarge(int chunkSize) {
+		if (chunkSize > Integer.MAX_VALUE / 8) {
+			throw new StatsException("Chunk of " + chunkSize + " doubles is larger than the 2 GB limit of a single mapping");
+		}
+	}
+	
+	/**
+	 * @param byteLength The length of a file of packed doubles, in bytes
+	 * @throws StatsException if the length is not a multiple of 8
+	 */
+	public void partialDoubleInFile(long byteLength) {
+		if (byteLength % 8 != 0) {
+			throw new StatsException("File length " + byteLength + " is not a multiple of 8 bytes");
+		}
+	}
+	
+	/**
+	 * @param count The number of values that need to be copied into an array
+	 * @throws StatsException if that many values do not fit in a Java array
+	 */
+	public void tooManyValuesToCopy(long count) {
+		if (count > Integer.MAX_VALUE - 8) {
+			throw new StatsException("Cannot copy " + count + " values into a single array");
+		}
+	}
+	
+	/**
+	 * @param delimiter The character between fields in a delimited file
+	 * @throws StatsException if the delimiter is not an ASCII character
+	 */
+	public void nonAsciiDelimiter(char delimiter) {
+		if (delimiter > 127) {
+			throw new StatsException("Delimiter must be an ASCII character");
+		}
+	}
+	
+	/**
+	 * @param hasHeader Whether a delimited file has a header line
+	 * @throws StatsException if it does not, so columns cannot be chosen by name
+	 */
+	public void noHeader(boolean hasHeader) {
+		if (!hasHeader) {
+			throw new StatsException("Columns can only be chosen by name when the file has a header");
+		}
+	}
+	
+	/**
+	 * @param found Whether the column name was found in the header
+	 * @param name The column name
+	 * @throws StatsException if the column name was not found
+	 */
+	public void unknownColumn(boolean found, String name) {
+		if (!found) {
+			throw new StatsException("No column named " + name + " in header");
+		}
+	}
+	
+	/**
+	 * @param stored Whether the columns of a read were stored
+	 * @throws StatsException if they were streamed instead
+	 */
+	public void columnsNotStored(boolean stored) {
+		if (!stored) {
+			throw new StatsException("Columns were streamed to consumers and not stored");
+		}
+	}
+	
+	/**
+	 * @param open Whether a column is still open
+	 * @throws StatsException if the column has been closed
+	 */
+	public void columnClosed(boolean open) {
+		if (!open) {
+			throw new StatsException("Column has been closed");
+		}
+	}
+	
+	/**
+	 * @param found Whether the key was found
+	 * @param key The key
+	 * @throws StatsException if the key was not found
+	 */
+	public void keyNotFound(boolean found, String key) {
+		if (!found) {
+			throw new StatsException("No values have been added for key " + key);
+		}
+	}
+	
+	/**
+	 * @param weight The weight of a value
+	 * @throws StatsException if the weight is not positive
+	 */
+	public void nonPositiveWeight(long weight) {
+		if (weight <= 0) {
+			throw new StatsException("Weight must be positive, but was " + weight);
+		}
+	}
+	
+	/**
+	 * @param halfLife The half-life of an exponentially weighted statistic
+	 * @throws StatsException if the half-life is not positive and finite
+	 */
+	public void nonPositiveHalfLife(double halfLife) {
+		if (!(halfLife > 0) || Double.isInfinite(halfLife)) {
+			throw new StatsException("Half-life must be positive and finite, but was " + halfLife);
+		}
+	}
+	
+	/**
+	 * @param lastTimestamp The time of the previous value
+	 * @param timestamp The time of the new value
+	 * @throws StatsException if the new value is earlier than the previous one, or if
+	 * either time is NaN
+	 */
+	public void timestampOutOfOrder(double lastTimestamp, double timestamp) {
+		if (!(timestamp >= lastTimestamp)) {
+			throw new StatsException("Timestamp " + timestamp + " is before the last timestamp " + lastTimestamp);
+		}
+	}
+	
+	/**
+	 * @param confidenceLevel The confidence level of an interval
+	 * @throws StatsException if the confidence level is not strictly between 0 and 1
+	 */
+	public void confidenceLevelOutOfRange(double confidenceLevel) {
+		if (!(confidenceLevel > 0 && confidenceLevel < 1)) {
+			throw new StatsException("Confidence level must be strictly between 0 and 1, but was " + confidenceLevel);
+		}
+	}
+	
+	/**
+	 * @param length The number of values available
+	 * @param k The number of values requested
+	 * @throws StatsException if k is not in the range 0 ≤ k ≤ length
+	 */
+	public void countOutOfRange(long length, long k) {
+		if (k < 0 || k > length) {
+			throw new StatsException("Count " + k + " must be between 0 and " + length + ", inclusive");
+		}
+	}
+	
+	/**
+	 * @param open Whether an external sorter is still open
+	 * @throws StatsException if the sorter has been closed
+	 */
+	public void sorterClosed(boolean open) {
+		if (!open) {
+			throw new StatsException("Sorter has been closed and its run files deleted");
+		}
+	}
+	
+	/**
+	 * @param fits Whether a result fits in a long
+	 * @throws StatsException if the result does not fit
+	 */
+	public void tooLargeForLong(boolean fits) {
+		if (!fits) {
+			throw new StatsException("Result is larger than " + Long.MAX_VALUE + "; use the BigInteger version instead");
+		}
+	}
+	
+	/**
+	 * @param x The argument of a function defined only for positive numbers
+	 * @throws StatsException if x is zero, negative, or NaN
+	 */
+	public void nonPositiveArgument(double x) {
+		if (!(x > 0)) {
+			throw new StatsException("Argument must be positive, but was " + x);
+		}
+	}
+	
+	/**
+	 * @param total The sum of several counts
+	 * @throws StatsException if the total is larger than Integer.MAX_VALUE
+	 */
+	public void totalTooLarge(long total) {
+		if (total > Integer.MAX_VALUE) {
+			throw new StatsException("Counts add up to " + total + ", which is more than " + Integer.MAX_VALUE);
+		}
+	}
+	
+	/**
+	 * @param valid Whether a modulus is a prime no larger than Integer.MAX_VALUE
+	 * @param modulus The modulus
+	 * @throws StatsException if the modulus is not valid
+	 */
+	public void invalidModulus(boolean valid, long modulus) {
+		if (!valid) {
+			throw new StatsException("Modulus must be a prime no larger than " + Integer.MAX_VALUE + ", but was " + modulus);
+		}
+	}
+	
+	/**
+	 * @param keys The number of distinct keys a table would hold
+	 * @param maxKeys The most distinct keys the table can hold
+	 * @throws StatsException if there are too many keys
+	 */
+	public void tooManyDistinctKeys(long keys, int maxKeys) {
+		if (keys > maxKeys) {
+			throw new StatsException("Table can hold at most " + maxKeys + " distinct keys");
+		}
+	}
+	
+	/**
+	 * @param chunkSize1 The chunk size of the first column
+	 * @param chunkSize2 The chunk size of the second column
+	 * @throws StatsException if the chunk sizes are different
+	 */
+	public void chunkSizesNotEqual(int chunkSize1, int chunkSize2) {
+		if (chunkSize1 != chunkSize2) {
+			throw new StatsException("Columns must have the same chunk size");
+		}
+	}
+	
 	/**
 	 * @param min The minimum of a range
 	 * @param max The maximum of a range
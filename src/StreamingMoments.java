@@ -0,0 +1,242 @@
+import java.nio.DoubleBuffer;
+
+/**
+ * Accumulates the mean and variance of a stream of numbers in a single pass, using
+ * O(1) memory. Values are added one at a time with Welford's update, or a block at a
+ * time, in which case the block's own mean and sum of squared deviations are found
+ * first and then combined with the running totals. <p>
+ * Two accumulators can be merged with Chan's formula, so a large dataset can be
+ * split into shards, accumulated separately (even on different machines), and then
+ * combined. The merged result is the same as if every value had been added to a
+ * single accumulator, up to floating point rounding. The smallest and largest values
+ * are tracked along the way.
+ * 
+ * @author Ian Mays
+ */
+public class StreamingMoments {
+	private static final int BUFFER_BLOCK_SIZE = 4096;
+	
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private long count = 0;
+	private double mean = 0;
+	private double sumOfSquaredDeviations = 0;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	
+	/**
+	 * Constructs an empty accumulator.
+	 */
+	public StreamingMoments() {
+	}
+	
+	/**
+	 * Constructs an accumulator that already holds a group of values, described by
+	 * its size, mean, sum of squared deviations, minimum, and maximum. Used to hand
+	 * out the moments kept by other accumulators, such as GroupedMoments.
+	 * @param count The number of values in the group
+	 * @param mean The mean of the group
+	 * @param sumOfSquaredDeviations The sum of squared deviations from the group's mean
+	 * @param min The smallest value in the group
+	 * @param max The largest value in the group
+	 */
+	public StreamingMoments(long count, double mean, double sumOfSquaredDeviations, double min, double max) {
+		combine(count, mean, sumOfSquaredDeviations, min, max);
+	}
+	
+	/**
+	 * Adds a single value to the accumulator.
+	 * @param value The value to add
+	 */
+	public void add(double value) {
+		count++;
+		
+		double deviation = value - mean;
+		mean += deviation / count;
+		sumOfSquaredDeviations += deviation * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+	
+	/**
+	 * Adds every value in an array to the accumulator.
+	 * @param values The array of values
+	 */
+	public void addAll(double[] values) {
+		addAll(values, 0, values.length);
+	}
+	
+	/**
+	 * Adds every value in a slice of an array to the accumulator. The slice is
+	 * reduced to its own count, mean, and sum of squared deviations, which are then
+	 * merged into the running totals.
+	 * @param values The array of values
+	 * @param offset The index of the first value in the slice
+	 * @param length The number of values in the slice
+	 * @throws StatsException if the slice is out of range
+	 */
+	public void addAll(double[] values, int offset, int length) {
+		checkFor.sliceOutOfRange(values, offset, length);
+		
+		if (length == 0) {
+			return;
+		}
+		
+		double sum = 0;
+		double blockMin = Double.POSITIVE_INFINITY;
+		double blockMax = Double.NEGATIVE_INFINITY;
+		for (int i = offset; i < offset + length; i++) {
+			sum += values[i];
+			blockMin = Math.min(blockMin, values[i]);
+			blockMax = Math.max(blockMax, values[i]);
+		}
+		
+		double blockMean = sum / length;
+		
+		double blockSum = 0;
+		for (int i = offset; i < offset + length; i++) {
+			double deviation = values[i] - blockMean;
+			blockSum += deviation * deviation;
+		}
+		
+		combine(length, blockMean, blockSum, blockMin, blockMax);
+	}
+	
+	/**
+	 * Adds every remaining value in a buffer to the accumulator without moving the
+	 * buffer's position. The buffer is read in small blocks, each of which is reduced
+	 * in two passes while it is still in cache and then merged into the running
+	 * totals, so this works just as well on direct and memory-mapped buffers.
+	 * @param values The buffer of values
+	 */
+	public void addAll(DoubleBuffer values) {
+		if (values.hasArray()) {
+			addAll(values.array(), values.arrayOffset() + values.position(), values.remaining());
+			return;
+		}
+		
+		for (int blockStart = values.position(); blockStart < values.limit(); blockStart += BUFFER_BLOCK_SIZE) {
+			int blockEnd = Math.min(blockStart + BUFFER_BLOCK_SIZE, values.limit());
+			
+			double sum = 0;
+			double blockMin = Double.POSITIVE_INFINITY;
+			double blockMax = Double.NEGATIVE_INFINITY;
+			for (int i = blockStart; i < blockEnd; i++) {
+				double value = values.get(i);
+				sum += value;
+				blockMin = Math.min(blockMin, value);
+				blockMax = Math.max(blockMax, value);
+			}
+			
+			double blockMean = sum / (blockEnd - blockStart);
+			
+			double blockSum = 0;
+			for (int i = blockStart; i < blockEnd; i++) {
+				double deviation = values.get(i) - blockMean;
+				blockSum += deviation * deviation;
+			}
+			
+			combine(blockEnd - blockStart, blockMean, blockSum, blockMin, blockMax);
+		}
+	}
+	
+	/**
+	 * Merges another accumulator into this one. The other accumulator is not changed.
+	 * @param other The accumulator to merge in
+	 */
+	public void merge(StreamingMoments other) {
+		combine(other.count, other.mean, other.sumOfSquaredDeviations, other.min, other.max);
+	}
+	
+	/**
+	 * @return The number of values added so far
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Finds the mean (average) of the values added so far.
+	 * @return The mean
+	 * @throws StatsException if no values have been added
+	 */
+	public double findMean() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return mean;
+	}
+	
+	/**
+	 * @return The smallest value added so far
+	 * @throws StatsException if no values have been added
+	 */
+	public double getMin() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return min;
+	}
+	
+	/**
+	 * @return The largest value added so far
+	 * @throws StatsException if no values have been added
+	 */
+	public double getMax() {
+		checkFor.lengthNotBigEnough(count, 1);
+		
+		return max;
+	}
+	
+	/**
+	 * Finds the (sample) variance of the values added so far, dividing by one less
+	 * than the number of values, just like NumericalMeasures.variance.
+	 * @return The variance
+	 * @throws StatsException if fewer than two values have been added
+	 */
+	public double variance() {
+		checkFor.lengthNotBigEnough(count, 2);
+		
+		return sumOfSquaredDeviations / (count - 1);
+	}
+	
+	/**
+	 * Finds the standard deviation of the values added so far. This is just the
+	 * square root of the variance.
+	 * @return The standard deviation
+	 * @throws StatsException if fewer than two values have been added
+	 */
+	public double standardDeviation() {
+		return Math.sqrt(variance());
+	}
+	
+	/**
+	 * Combines a group of values, described by its size, mean, and sum of squared
+	 * deviations, into the running totals using Chan's parallel update.
+	 * @param otherCount The number of values in the group
+	 * @param otherMean The mean of the group
+	 * @param otherSum The sum of squared deviations from the group's mean
+	 * @param otherMin The smallest value in the group
+	 * @param otherMax The largest value in the group
+	 */
+	private void combine(long otherCount, double otherMean, double otherSum, double otherMin, double otherMax) {
+		if (otherCount == 0) {
+			return;
+		}
+		
+		min = Math.min(min, otherMin);
+		max = Math.max(max, otherMax);
+		
+		if (count == 0) {
+			count = otherCount;
+			mean = otherMean;
+			sumOfSquaredDeviations = otherSum;
+			return;
+		}
+		
+		long totalCount = count + otherCount;
+		double delta = otherMean - mean;
+		
+		mean += delta * otherCount / totalCount;
+		sumOfSquaredDeviations += otherSum + delta * delta * ((double) count * otherCount / totalCount);
+		count = totalCount;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Accumulates the count, mean, variance, minimum, and maximum of the values for each
+ * String key in a stream of (key, value) pairs, in a single pass. Each distinct
+ * String is given a dense int id the first time it is seen, and the moments are kept
+ * by a GroupedMoments under that id, so the only per-pair work beyond a
+ * GroupedMoments update is one String lookup. <p>
+ * Ids are local to each accumulator, so merging looks up each of the other
+ * accumulator's keys by name.
+ * 
+ * @author Ian Mays
+ */
+public class StringGroupedMoments {
+	private StatsExceptionChecker checkFor = new StatsExceptionChecker();
+	
+	private HashMap<String, Integer> ids = new HashMap<>();
+	private ArrayList<String> names = new ArrayList<>();
+	private GroupedMoments groups = new GroupedMoments();
+	
+	/**
+	 * Adds a value to the group for a key, creating the group if needed.
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void add(String key, double value) {
+		groups.add(idOf(key), value);
+	}
+	
+	/**
+	 * Adds each value to the group for the key at the same index.
+	 * @param keys The keys
+	 * @param values The values
+	 * @throws StatsException if the arrays are not the same length
+	 */
+	public void addAll(String[] keys, double[] values) {
+		checkFor.arraysNotEqualLength(keys.length, values.length);
+		
+		for (int i = 0; i < keys.length; i++) {
+			add(keys[i], values[i]);
+		}
+	}
+	
+	/**
+	 * Merges every group of another accumulator into the group with the same key in
+	 * this one. The other accumulator is not changed.
+	 * @param other The accumulator to merge in
+	 */
+	public void merge(StringGroupedMoments other) {
+		for (int otherId = 0; otherId < other.names.size(); otherId++) {
+			int otherGroup = other.groups.findGroup(otherId);
+			
+			if (otherGroup >= 0) {
+				groups.mergeGroup(groups.groupOf(idOf(other.names.get(otherId))), other.groups, otherGroup);
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of distinct keys
+	 */
+	public int size() {
+		return names.size();
+	}
+	
+	/**
+	 * @return Every key, in the order each was first added
+	 */
+	public String[] keys() {
+		return names.toArray(new String[0]);
+	}
+	
+	/**
+	 * @param key The key
+	 * @return Whether any values have been added for the key
+	 */
+	public boolean containsKey(String key) {
+		return ids.containsKey(key);
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The number of values added for the key, or zero if there are none
+	 */
+	public long getCount(String key) {
+		Integer id = ids.get(key);
+		
+		return id == null ? 0 : groups.getCount(id);
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The mean of the values added for the key
+	 * @throws StatsException if no values have been added for the key
+	 */
+	public double findMean(String key) {
+		return get(key).findMean();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The (sample) variance of the values added for the key
+	 * @throws StatsException if fewer than two values have been added for the key
+	 */
+	public double variance(String key) {
+		return get(key).variance();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The standard deviation of the values added for the key
+	 * @throws StatsException if fewer than two values have been added for the key
+	 */
+	public double standardDeviation(String key) {
+		return get(key).standardDeviation();
+	}
+	
+	/**
+	 * @param key The key
+	 * @return A copy of the moments of the values added for the key
+	 * @throws StatsException if no values have been added for the key
+	 */
+	public StreamingMoments get(String key) {
+		Integer id = ids.get(key);
+		checkFor.keyNotFound(id != null, key);
+		
+		return groups.get(id);
+	}
+	
+	/**
+	 * @param key The key
+	 * @return The key's id, which is assigned the first time the key is seen
+	 */
+	private int idOf(String key) {
+		Integer id = ids.get(key);
+		
+		if (id == null) {
+			id = names.size();
+			ids.put(key, id);
+			names.add(key);
+		}
+		
+		return id;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tester for ArrayListSorter. Sorts a small list and a large array in every mode and
+ * compares each result with Arrays.sort.
+ * 
+ * @author Ian Mays
+ */
+public class TestArrayListSorter {
+	public static void main(String[] args) {
+		ArrayListSorter sorter = new ArrayListSorter();
+		
+		ArrayList<Double> userInputNumbers = new ArrayList<>(Arrays.asList(4.0, -1.5, 0.0, 9.0, Double.NaN, -0.0, 2.5, 4.0));
+		System.out.println("Original list: " + userInputNumbers);
+		System.out.println("Sorted copy: " + sorter.sort(userInputNumbers));
+		System.out.println("Sorted in parallel: " + sorter.parallelSort(userInputNumbers));
+		System.out.println("Smallest 3: " + sorter.partialSort(userInputNumbers, 3));
+		System.out.println("Original list unchanged: " + userInputNumbers);
+		
+		sorter.sortInPlace(userInputNumbers);
+		System.out.println("Sorted in place: " + userInputNumbers);
+		
+		System.out.println();
+		
+		Random random = new Random(42);
+		double[] numbers = new double[200000];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = Math.round(1000 * random.nextGaussian()) / 10.0;
+		}
+		numbers[17] = Double.NaN;
+		numbers[29] = Double.NEGATIVE_INFINITY;
+		
+		double[] original = numbers.clone();
+		double[] sortedNumbers = numbers.clone();
+		Arrays.sort(sortedNumbers);
+		
+		System.out.println("sort matches Arrays.sort: " + Arrays.equals(sortedNumbers, sorter.sort(numbers)));
+		System.out.println("parallelSort matches Arrays.sort: " + Arrays.equals(sortedNumbers, sorter.parallelSort(numbers)));
+		System.out.println("radixSort matches Arrays.sort: " + Arrays.equals(sortedNumbers, sorter.radixSort(numbers)));
+		System.out.println("Smallest 5 by partialSort: " + Arrays.toString(sorter.partialSort(numbers, 5)));
+		System.out.println("Array unchanged by the copying sorts: " + Arrays.equals(original, numbers));
+		
+		sorter.partialSortInPlace(numbers, 1000);
+		System.out.println("First 1000 after partialSortInPlace match Arrays.sort: " + Arrays.equals(Arrays.copyOf(sortedNumbers, 1000), Arrays.copyOf(numbers, 1000)));
+		
+		sorter.radixSortInPlace(numbers);
+		System.out.println("radixSortInPlace matches Arrays.sort: " + Arrays.equals(sortedNumbers, numbers));
+		System.out.println("Min, max: " + numbers[0] + ", " + numbers[numbers.length - 1]);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tester for Bootstrap. Finds percentile and BCa intervals for the mean and the median
+ * of a skewed sample, compares the interval for the mean with the usual normal
+ * interval, and checks that the same seed gives the same replicates.
+ * 
+ * @author Ian Mays
+ */
+public class TestBootstrap {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		OrderStatistics orderStatistics = new OrderStatistics();
+		Bootstrap bootstrap = new Bootstrap(42);
+		
+		Random random = new Random(7);
+		double[] waitingTimes = new double[2000];
+		for (int i = 0; i < waitingTimes.length; i++) {
+			waitingTimes[i] = -10 * Math.log(1 - random.nextDouble());
+		}
+		
+		ConfidenceInterval meanPercentile = bootstrap.percentileInterval(waitingTimes, measures::findMean, 2000, 0.95);
+		ConfidenceInterval meanBca = bootstrap.bcaInterval(waitingTimes, measures::findMean, 2000, 0.95);
+		ConfidenceInterval medianPercentile = bootstrap.percentileInterval(waitingTimes, orderStatistics::medianInPlace, 2000, 0.95);
+		ConfidenceInterval medianBca = bootstrap.bcaInterval(waitingTimes, orderStatistics::medianInPlace, 2000, 0.95);
+		
+		double halfWidth = 1.959964 * measures.standardDeviation(waitingTimes) / Math.sqrt(waitingTimes.length);
+		
+		System.out.println("2000 exponential waiting times with mean 10, 2000 replicates, 95% intervals:");
+		System.out.println("Mean: " + meanPercentile.getEstimate());
+		System.out.println("  normal theory [" + (meanPercentile.getEstimate() - halfWidth) + ", " + (meanPercentile.getEstimate() + halfWidth) + "]");
+		System.out.println("  percentile    [" + meanPercentile.getLower() + ", " + meanPercentile.getUpper() + "]");
+		System.out.println("  BCa           [" + meanBca.getLower() + ", " + meanBca.getUpper() + "]");
+		System.out.println("Median: " + medianPercentile.getEstimate() + " (true median " + 10 * Math.log(2) + ")");
+		System.out.println("  percentile    [" + medianPercentile.getLower() + ", " + medianPercentile.getUpper() + "]");
+		System.out.println("  BCa           [" + medianBca.getLower() + ", " + medianBca.getUpper() + "]");
+		
+		double[] first = bootstrap.replicates(waitingTimes, measures::findMean, 100);
+		double[] second = new Bootstrap(42).replicates(waitingTimes, measures::findMean, 100);
+		System.out.println("Same seed gives the same replicates: " + Arrays.equals(first, second));
+	}
+}
\ No newline at end of file
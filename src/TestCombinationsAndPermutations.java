@@ -1,6 +1,9 @@
+import java.util.Arrays;
+
 /**
  * Tester for CombinationsAndPermutations. Finds the number of ways to choose 10
- * objects from a set of 20 objects, both unordered and ordered.
+ * objects from a set of 20 objects, both unordered and ordered, then a few much larger
+ * cases, a multinomial coefficient, and a row of Pascal's triangle.
  * 
  * @author Ian Mays
  */
@@ -10,5 +13,15 @@ public class TestCombinationsAndPermutations {
 		System.out.println("20! = " + comsAndPerms.factorial(20));
 		System.out.println("C(20, 10) = " + comsAndPerms.combinations(20, 10));
 		System.out.println("P(20, 10) = " + comsAndPerms.permutations(20, 10));
+		System.out.println("C(100000, 2) = " + comsAndPerms.combinations(100000, 2));
+		System.out.println("C(100000, 99997) = " + comsAndPerms.combinations(100000, 99997));
+		System.out.println("C(60, 30) as a long = " + comsAndPerms.combinationsLong(60, 30));
+		System.out.println("P(100000, 3) = " + comsAndPerms.permutations(100000, 3));
+		System.out.println("C(100000, 50000) has " + comsAndPerms.combinations(100000, 50000).bitLength() + " bits");
+		System.out.println("Multinomial(3, 3, 4) = " + comsAndPerms.multinomial(3, 3, 4));
+		
+		PascalRow row = comsAndPerms.pascalRow(10);
+		System.out.println("Row 10 of Pascal's triangle: " + Arrays.toString(row.toArray()));
+		System.out.println("C(10, 4) from the row = " + row.get(4));
 	}
 }
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+
+/**
+ * Tester for ConcurrentStatsRecorder. Several threads record latencies at once while
+ * the main thread keeps taking snapshots, then the final snapshot is compared with
+ * NumericalMeasures on all of the values together. Finally many short-lived threads
+ * record a few values each, which must not add any stripes.
+ * 
+ * @author Ian Mays
+ */
+public class TestConcurrentStatsRecorder {
+	public static void main(String[] args) throws InterruptedException {
+		NumericalMeasures measures = new NumericalMeasures();
+		ConcurrentStatsRecorder recorder = new ConcurrentStatsRecorder();
+		
+		int threadCount = 4;
+		int valuesPerThread = 250000;
+		
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			int thread = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < valuesPerThread; i++) {
+					recorder.record(latency(thread, i));
+				}
+			});
+			threads[t].start();
+		}
+		
+		// every snapshot taken while the threads run must describe real values
+		boolean snapshotsConsistent = true;
+		for (int i = 0; i < 1000; i++) {
+			StreamingMoments snapshot = recorder.snapshot();
+			
+			if (snapshot.getCount() > 0 && (snapshot.getMin() < 1 || snapshot.getMax() > 10 * threadCount || snapshot.findMean() < snapshot.getMin() || snapshot.findMean() > snapshot.getMax())) {
+				snapshotsConsistent = false;
+			}
+		}
+		
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		
+		ArrayList<Double> allValues = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			for (int i = 0; i < valuesPerThread; i++) {
+				allValues.add(latency(t, i));
+			}
+		}
+		
+		StreamingMoments snapshot = recorder.snapshot();
+		
+		System.out.println("Stripes: " + recorder.getStripeCount());
+		System.out.println("Every snapshot taken during recording was consistent: " + snapshotsConsistent);
+		System.out.println("Count (recorder, list): " + snapshot.getCount() + ", " + allValues.size());
+		System.out.println("Average agrees to 1e-12 relative: " + (Math.abs(snapshot.findMean() - measures.findMean(allValues)) <= 1e-12 * measures.findMean(allValues)));
+		System.out.println("Variance agrees to 1e-9 relative: " + (Math.abs(snapshot.variance() - measures.variance(allValues)) <= 1e-9 * measures.variance(allValues)));
+		System.out.println("Min, max: " + snapshot.getMin() + ", " + snapshot.getMax());
+		
+		// short-lived threads share the same stripes instead of each adding a cell
+		for (int t = 0; t < 200; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 100; i++) {
+					recorder.record(5);
+				}
+			});
+			thread.start();
+			thread.join();
+		}
+		
+		System.out.println("After 200 more short-lived threads, stripes, count: " + recorder.getStripeCount() + ", " + recorder.getCount());
+	}
+	
+	/**
+	 * @param thread The thread recording the value
+	 * @param i The index of the value within the thread
+	 * @return A made-up latency between 1 and 10 times the thread number plus one
+	 */
+	private static double latency(int thread, int i) {
+		return 1 + (i * 7919 % 1000) / 1000.0 * (10 * (thread + 1) - 1);
+	}
+}
\ No newline at end of file
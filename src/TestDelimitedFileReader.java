@@ -0,0 +1,66 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Tester for DelimitedFileReader. Writes a small CSV file with a header, quoted text,
+ * and a few malformed rows, then reads two of its columns by name into arrays and
+ * streams one of them into a StreamingMoments, printing how many rows were skipped.
+ * Then reads one column twice in the same call, and finally checks that Java literal
+ * forms such as 1f and 0x1p3 are not taken for numbers.
+ * 
+ * @author Ian Mays
+ */
+public class TestDelimitedFileReader {
+	public static void main(String[] args) throws IOException {
+		NumericalMeasures measures = new NumericalMeasures();
+		DelimitedFileReader reader = new DelimitedFileReader();
+		
+		String csv = "host,latency,\"note, with comma\",bytes\r\n"
+				+ "a,12.5,\"ok, fine\",1024\r\n"
+				+ "b,-3.25e1,plain,2048\r\n"
+				+ "c,oops,bad latency,10\r\n"
+				+ "\r\n"
+				+ "d,0.000123456789012345678,long fraction,\"4096\"\r\n"
+				+ "e,7\r\n"
+				+ "f,1E3,,8192";
+		
+		Path file = Files.createTempFile("ingest", ".csv");
+		Files.write(file, csv.getBytes(StandardCharsets.UTF_8));
+		
+		try {
+			IngestionResult result = reader.readColumns(file, new String[] {"latency", "bytes"});
+			
+			System.out.println("latency = " + Arrays.toString(result.getColumn(0)));
+			System.out.println("bytes = " + Arrays.toString(result.getColumn(1)));
+			System.out.println("Rows read, accepted, skipped: " + result.getRowsRead() + ", " + result.getRowsAccepted() + ", " + result.getRowsSkipped());
+			System.out.println("Skipped for too few fields, for bad numbers: " + result.getShortRowsSkipped() + ", " + result.getUnparseableRowsSkipped());
+			
+			StreamingMoments moments = new StreamingMoments();
+			IngestionResult streamed = reader.streamColumns(file, new int[] {1}, new DoubleConsumer[] {moments::add});
+			
+			System.out.println();
+			System.out.println("Streamed " + streamed.getRowsAccepted() + " latency values into StreamingMoments");
+			System.out.println("Average latency (NumericalMeasures on array, streamed): " + measures.findMean(result.getColumn(0)) + ", " + moments.findMean());
+			System.out.println("Rows skipped while streaming only latency: " + streamed.getRowsSkipped());
+			
+			IngestionResult twice = reader.readColumns(file, new int[] {3, 1, 3});
+			
+			System.out.println();
+			System.out.println("bytes, latency, bytes again = " + Arrays.toString(twice.getColumn(0)) + ", " + Arrays.toString(twice.getColumn(1)) + ", " + Arrays.toString(twice.getColumn(2)));
+			System.out.println("Rows accepted with bytes selected twice: " + twice.getRowsAccepted());
+			
+			// Java literal forms are not numbers in a CSV file
+			Files.write(file, "x\n1.5\n1f\n2d\n0x1p3\n-Infinity\n".getBytes(StandardCharsets.UTF_8));
+			IngestionResult literals = reader.readColumns(file, new int[] {0});
+			
+			System.out.println();
+			System.out.println("x = " + Arrays.toString(literals.getColumn(0)) + ", rows skipped for bad numbers: " + literals.getUnparseableRowsSkipped());
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tester for DescriptiveSummary. Summarizes a list with NumericalMeasures.describe and
+ * compares each measure with the separate NumericalMeasures and OrderStatistics
+ * calls, then summarizes a slice of a skewed, multimodal array.
+ * 
+ * @author Ian Mays
+ */
+public class TestDescriptiveSummary {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		OrderStatistics orderStatistics = new OrderStatistics();
+		
+		ArrayList<Double> testNumbers = new ArrayList<>();
+		
+		testNumbers.add(2.0);
+		testNumbers.add(4.0);
+		testNumbers.add(4.0);
+		testNumbers.add(1.0);
+		testNumbers.add(3.0);
+		testNumbers.add(6.0);
+		
+		DescriptiveSummary summary = measures.describe(testNumbers);
+		
+		System.out.println("testNumbers = " + testNumbers);
+		System.out.println("Count: " + summary.getCount());
+		System.out.println("Average (summary, separate): " + summary.findMean() + ", " + measures.findMean(testNumbers));
+		System.out.println("Median (summary, separate): " + summary.findMedian() + ", " + measures.findMedian(testNumbers));
+		System.out.println("Mode (summary, separate): " + summary.findMode() + ", " + measures.findMode(testNumbers));
+		System.out.println("Variance (summary, separate): " + summary.variance() + ", " + measures.variance(testNumbers));
+		System.out.println("Standard deviation (summary, separate): " + summary.standardDeviation() + ", " + measures.standardDeviation(testNumbers));
+		System.out.println("Min, max: " + summary.getMin() + ", " + summary.getMax());
+		System.out.println("Quartiles (summary): " + summary.getFirstQuartile() + ", " + summary.getThirdQuartile() + ", IQR " + summary.interquartileRange());
+		System.out.println("Quartiles (OrderStatistics): " + Arrays.toString(orderStatistics.quantiles(new double[] {2.0, 4.0, 4.0, 1.0, 3.0, 6.0}, new double[] {0.25, 0.75})));
+		System.out.println("Skewness, kurtosis: " + summary.skewness() + ", " + summary.kurtosis());
+		
+		double[] skewedNumbers = {99.0, 1.0, 1.0, 2.0, 2.0, 3.0, 4.0, 5.0, 8.0, 13.0, 40.0, 99.0};
+		DescriptiveSummary skewedSummary = measures.describe(skewedNumbers, 1, 10);
+		
+		System.out.println();
+		System.out.println("skewedNumbers = " + Arrays.toString(skewedNumbers) + ", slice [1, 11)");
+		System.out.println("Average, median: " + skewedSummary.findMean() + ", " + skewedSummary.findMedian());
+		System.out.println("All modes: " + Arrays.toString(skewedSummary.findModes().getModes()) + ", each occurring " + skewedSummary.findModes().getFrequency() + " times");
+		System.out.println("Quartiles: " + skewedSummary.getFirstQuartile() + ", " + skewedSummary.getThirdQuartile() + ", IQR " + skewedSummary.interquartileRange());
+		System.out.println("Skewness, kurtosis: " + skewedSummary.skewness() + ", " + skewedSummary.kurtosis());
+		System.out.println("Array unchanged: " + Arrays.toString(skewedNumbers));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Tester for DynamicOrderStatistics. Inserts and retracts samples one at a time and,
+ * after each change, compares the median with NumericalMeasures on a list holding the
+ * same samples.
+ * 
+ * @author Ian Mays
+ */
+public class TestDynamicOrderStatistics {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		DynamicOrderStatistics samples = new DynamicOrderStatistics();
+		ArrayList<Double> sameSamples = new ArrayList<>();
+		
+		double[] arriving = {5.0, 1.0, 9.0, 3.0, 3.0, 7.0, 2.0};
+		for (double value : arriving) {
+			samples.insert(value);
+			sameSamples.add(value);
+			System.out.println("Inserted " + value + ": median (dynamic, NumericalMeasures) " + samples.findMedian() + ", " + measures.findMedian(sameSamples));
+		}
+		
+		double[] retracted = {9.0, 3.0, 4.0, 1.0};
+		for (double value : retracted) {
+			boolean found = samples.remove(value);
+			sameSamples.remove(value);
+			System.out.println("Removed " + value + " (found: " + found + "): median (dynamic, NumericalMeasures) " + samples.findMedian() + ", " + measures.findMedian(sameSamples));
+		}
+		
+		System.out.println();
+		System.out.println("Values: " + Arrays.toString(samples.toArray()));
+		System.out.println("Size: " + samples.size() + ", min: " + samples.getMin() + ", max: " + samples.getMax());
+		System.out.println("Rank of 5.0: " + samples.rank(5.0) + ", rank of 4.0: " + samples.rank(4.0) + ", count of 3.0: " + samples.count(3.0));
+		System.out.println("Select rank 2: " + samples.select(2));
+		System.out.println("0.25 and 0.9 quantiles: " + samples.quantile(0.25) + ", " + samples.quantile(0.9));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+
+/**
+ * Tester for ExponentialMovingStatistics. Compares the count-based version with the
+ * weighted mean and variance computed directly from every value's weight, then
+ * shows the time-based version following a step change in irregularly timed
+ * samples.
+ * 
+ * @author Ian Mays
+ */
+public class TestExponentialMovingStatistics {
+	public static void main(String[] args) {
+		double[] testNumbers = {10.0, 12.0, 9.0, 11.0, 30.0, 31.0, 29.0, 30.5};
+		double halfLife = 2;
+		
+		ExponentialMovingStatistics byCount = new ExponentialMovingStatistics(halfLife);
+		for (double singleElement : testNumbers) {
+			byCount.add(singleElement);
+		}
+		
+		// the value i steps before the last one has weight 2^(-i/halfLife)
+		double totalWeight = 0;
+		double weightedSum = 0;
+		for (int i = 0; i < testNumbers.length; i++) {
+			double weight = Math.pow(2, -(testNumbers.length - 1 - i) / halfLife);
+			totalWeight += weight;
+			weightedSum += weight * testNumbers[i];
+		}
+		
+		double directMean = weightedSum / totalWeight;
+		double weightedSquares = 0;
+		for (int i = 0; i < testNumbers.length; i++) {
+			double weight = Math.pow(2, -(testNumbers.length - 1 - i) / halfLife);
+			weightedSquares += weight * (testNumbers[i] - directMean) * (testNumbers[i] - directMean);
+		}
+		
+		System.out.println("testNumbers = " + Arrays.toString(testNumbers) + ", half-life " + halfLife + " values");
+		System.out.println("Effective count (accumulator, direct): " + byCount.getEffectiveCount() + ", " + totalWeight);
+		System.out.println("Weighted average (accumulator, direct): " + byCount.findMean() + ", " + directMean);
+		System.out.println("Weighted variance (accumulator, direct): " + byCount.variance() + ", " + weightedSquares / totalWeight);
+		
+		ExponentialMovingStatistics byTime = new ExponentialMovingStatistics(60);
+		double[] seconds = {0, 5, 7, 30, 61, 62, 90, 150, 151, 210};
+		
+		System.out.println();
+		System.out.println("Latency samples with a half-life of 60 seconds, jumping from 100 to 200 at t = 61:");
+		for (double time : seconds) {
+			byTime.add(time < 61 ? 100 : 200, time);
+			System.out.println("  t = " + time + ": average " + byTime.findMean() + ", standard deviation " + byTime.standardDeviation());
+		}
+		
+		try {
+			byTime.add(150, 200);
+		} catch (StatsException e) {
+			System.out.println("Out of order sample rejected: " + e.getMessage());
+		}
+	}
+}
\ No newline at end of file
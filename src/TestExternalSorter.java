@@ -0,0 +1,48 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.stream.DoubleStream;
+
+/**
+ * Tester for ExternalSorter. Uses deliberately small runs so that the values are
+ * spilled to many temporary files, which then need more than one merge pass, and
+ * compares the results with NumericalMeasures on the same values held in an array.
+ * 
+ * @author Ian Mays
+ */
+public class TestExternalSorter {
+	public static void main(String[] args) throws IOException {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		Random random = new Random(11);
+		double[] numbers = new double[500001];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = Math.round(100 * random.nextGaussian()) / 10.0;
+		}
+		
+		double[] sortedNumbers = numbers.clone();
+		Arrays.sort(sortedNumbers);
+		
+		try (ExternalSorter sorter = new ExternalSorter(5000)) {
+			sorter.addAll(numbers);
+			
+			System.out.println("Sorted " + sorter.size() + " doubles in " + sorter.getRunCount() + " runs");
+			System.out.println("Median (array, sorter): " + measures.findMedian(numbers) + ", " + sorter.findMedian());
+			System.out.println("Mode (array, sorter): " + measures.findMode(numbers) + ", " + sorter.findMode());
+			System.out.println("0.1 and 0.99 quantiles (array): " + measures.quantile(numbers, 0.1) + ", " + measures.quantile(numbers, 0.99));
+			System.out.println("0.1 and 0.99 quantiles (sorter): " + Arrays.toString(sorter.quantiles(new double[] {0.1, 0.99})));
+			System.out.println("Runs after merging down: " + sorter.getRunCount());
+			
+			try (DoubleStream sorted = sorter.stream()) {
+				System.out.println("Stream matches Arrays.sort: " + Arrays.equals(sortedNumbers, sorted.toArray()));
+			}
+			
+			PrimitiveIterator.OfDouble iterator = sorter.iterator();
+			System.out.println("Smallest three: " + iterator.nextDouble() + ", " + iterator.nextDouble() + ", " + iterator.nextDouble());
+			while (iterator.hasNext()) {
+				iterator.nextDouble();
+			}
+		}
+	}
+}
\ No newline at end of file
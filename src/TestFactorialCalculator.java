@@ -0,0 +1,34 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Tester for FactorialCalculator, along with the PrimeSieve and ProductTree it is
+ * built on. Checks the prime swing factorials against multiplying 2 * 3 * ... * n
+ * one at a time.
+ * 
+ * @author Ian Mays
+ */
+public class TestFactorialCalculator {
+	public static void main(String[] args) {
+		PrimeSieve sieve = new PrimeSieve(50);
+		System.out.println("Primes up to 50: " + Arrays.toString(sieve.primes()));
+		System.out.println("Number of primes up to 50: " + sieve.count() + ", 47 is prime: " + sieve.isPrime(47) + ", 49 is prime: " + sieve.isPrime(49));
+		
+		ProductTree productTree = new ProductTree();
+		System.out.println("Product of 3, -4, 5, 1000000007: " + productTree.product(new long[] {3, -4, 5, 1000000007}));
+		System.out.println("Product of 10 through 30: " + productTree.productOfRange(10, 30));
+		
+		FactorialCalculator factorials = new FactorialCalculator();
+		System.out.println("25! = " + factorials.factorial(25));
+		
+		for (int n : new int[] {257, 1000, 20000}) {
+			BigInteger oneAtATime = BigInteger.ONE;
+			for (int i = 2; i <= n; i++) {
+				oneAtATime = oneAtATime.multiply(BigInteger.valueOf(i));
+			}
+			
+			BigInteger fast = factorials.factorial(n);
+			System.out.println(n + "! has " + fast.bitLength() + " bits, matches one at a time: " + fast.equals(oneAtATime));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Tester for GroupedMoments and StringGroupedMoments. Groups latencies by endpoint id
+ * and by host name, compares each group with NumericalMeasures on a list holding just
+ * that group's values, and checks that per-thread tables merge to the same result.
+ * 
+ * @author Ian Mays
+ */
+public class TestGroupedMoments {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		long[] endpoints = {7, 3, 7, 7, 3, 12, 3, 7};
+		double[] latencies = {12.0, 40.5, 15.5, 11.0, 38.0, 5.25, 44.5, 13.5};
+		
+		GroupedMoments byEndpoint = new GroupedMoments();
+		byEndpoint.addAll(endpoints, latencies);
+		
+		System.out.println("Endpoints with values: " + byEndpoint.size());
+		for (long endpoint : byEndpoint.keys()) {
+			ArrayList<Double> groupValues = new ArrayList<>();
+			for (int i = 0; i < endpoints.length; i++) {
+				if (endpoints[i] == endpoint) {
+					groupValues.add(latencies[i]);
+				}
+			}
+			
+			System.out.print("Endpoint " + endpoint + ": count " + byEndpoint.getCount(endpoint) + ", average (grouped, NumericalMeasures) " + byEndpoint.findMean(endpoint) + ", " + measures.findMean(groupValues));
+			if (groupValues.size() >= 2) {
+				System.out.print(", variance " + byEndpoint.variance(endpoint) + ", " + measures.variance(groupValues));
+			}
+			System.out.println();
+		}
+		
+		StringGroupedMoments byHost = new StringGroupedMoments();
+		StringGroupedMoments otherThread = new StringGroupedMoments();
+		byHost.addAll(new String[] {"alpha", "beta", "alpha"}, new double[] {1.0, 10.0, 3.0});
+		otherThread.addAll(new String[] {"gamma", "alpha", "beta"}, new double[] {100.0, 5.0, 20.0});
+		byHost.merge(otherThread);
+		
+		System.out.println();
+		System.out.println("Hosts after merging two tables: " + String.join(", ", byHost.keys()));
+		System.out.println("alpha: count " + byHost.getCount("alpha") + ", average " + byHost.findMean("alpha") + ", variance " + byHost.variance("alpha"));
+		System.out.println("beta: count " + byHost.getCount("beta") + ", average " + byHost.findMean("beta") + ", min " + byHost.get("beta").getMin() + ", max " + byHost.get("beta").getMax());
+		System.out.println("delta seen: " + byHost.containsKey("delta"));
+		
+		Random random = new Random(42);
+		long[] manyKeys = new long[500000];
+		double[] manyValues = new double[manyKeys.length];
+		for (int i = 0; i < manyKeys.length; i++) {
+			manyKeys[i] = random.nextInt(1000);
+			manyValues[i] = manyKeys[i] + random.nextGaussian();
+		}
+		
+		GroupedMoments serial = new GroupedMoments();
+		serial.addAll(manyKeys, manyValues);
+		GroupedMoments parallel = new ParallelMeasures(10000).groupedMoments(manyKeys, manyValues);
+		
+		double worstDifference = 0;
+		for (long key : serial.keys()) {
+			worstDifference = Math.max(worstDifference, Math.abs(serial.variance(key) - parallel.variance(key)));
+		}
+		
+		System.out.println();
+		System.out.println("500000 values in " + serial.size() + " groups (serial), " + parallel.size() + " groups (parallel)");
+		System.out.println("Largest variance difference below 1e-9: " + (worstDifference < 1e-9));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+import java.util.Random;
+
+/**
+ * Tester for HeavyHitters. Feeds a skewed stream of request sizes into two summaries
+ * of 20 counters each, merges them, and compares the estimated top values and their
+ * error bounds with the exact modes from NumericalMeasures.
+ * 
+ * @author Ian Mays
+ */
+public class TestHeavyHitters {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		Random random = new Random(42);
+		double[] sizes = new double[200000];
+		for (int i = 0; i < sizes.length; i++) {
+			// a few popular sizes, plus a long tail of distinct ones
+			sizes[i] = random.nextInt(3) == 0 ? 1000 + random.nextInt(100000) : Math.floor(Math.pow(random.nextDouble(), -1.5));
+		}
+		
+		HeavyHitters firstHalf = new HeavyHitters(20);
+		HeavyHitters secondHalf = new HeavyHitters(20);
+		for (int i = 0; i < sizes.length; i++) {
+			if (i < sizes.length / 2) {
+				firstHalf.add(sizes[i]);
+			} else {
+				secondHalf.add(sizes[i]);
+			}
+		}
+		firstHalf.merge(secondHalf);
+		
+		DoubleCountMap exactCounts = measures.frequencyTable(sizes);
+		
+		System.out.println("Values added: " + firstHalf.getTotalCount() + ", counters: " + firstHalf.getCapacity() + ", error bound n/m: " + firstHalf.getTotalCount() / firstHalf.getCapacity());
+		System.out.println("Mode (exact, estimated): " + measures.findMode(sizes) + ", " + firstHalf.findMode());
+		System.out.println("Top 5 (value: estimated count, error, exact count):");
+		for (HeavyHitter hitter : firstHalf.topK(5)) {
+			System.out.println("  " + hitter.getValue() + ": " + hitter.getCount() + ", " + hitter.getError() + ", " + exactCounts.get(hitter.getValue()));
+		}
+		System.out.println("Estimated count of an unwatched value: " + firstHalf.estimateCount(-1.0));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+import java.math.BigInteger;
+
+/**
+ * Tester for LegendreCombinatorics. Checks combinations, permutations, and
+ * multinomial coefficients found from their prime factorizations against dividing
+ * factorials.
+ * 
+ * @author Ian Mays
+ */
+public class TestLegendreCombinatorics {
+	public static void main(String[] args) {
+		LegendreCombinatorics legendre = new LegendreCombinatorics();
+		FactorialCalculator factorials = new FactorialCalculator();
+		
+		System.out.println("C(20, 10) = " + legendre.combinations(20, 10));
+		System.out.println("P(20, 10) = " + legendre.permutations(20, 10));
+		System.out.println("Multinomial(2, 3, 4) = " + legendre.multinomial(2, 3, 4));
+		
+		for (int[] pair : new int[][] {{1000, 500}, {30000, 7}, {30000, 12345}}) {
+			int n = pair[0];
+			int r = pair[1];
+			BigInteger byFactorials = factorials.factorial(n).divide(factorials.factorial(r)).divide(factorials.factorial(n - r));
+			BigInteger combinations = legendre.combinations(n, r);
+			System.out.println("C(" + n + ", " + r + ") has " + combinations.bitLength() + " bits, matches factorials: " + combinations.equals(byFactorials));
+			
+			BigInteger permutations = legendre.permutations(n, r);
+			System.out.println("P(" + n + ", " + r + ") matches factorials: " + permutations.equals(factorials.factorial(n).divide(factorials.factorial(n - r))));
+		}
+		
+		int[] counts = {5000, 3000, 2000, 1};
+		BigInteger byFactorials = factorials.factorial(10001);
+		for (int count : counts) {
+			byFactorials = byFactorials.divide(factorials.factorial(count));
+		}
+		System.out.println("Multinomial(5000, 3000, 2000, 1) matches factorials: " + legendre.multinomial(counts).equals(byFactorials));
+		
+		System.out.println("C(1000000, 500000) has " + legendre.combinations(1000000, 500000).bitLength() + " bits");
+	}
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+/**
+ * Tester for LogCombinatorics. Compares the logarithms with the exact values from
+ * CombinationsAndPermutations where those fit in a double, and shows a few cases far
+ * beyond where they overflow.
+ * 
+ * @author Ian Mays
+ */
+public class TestLogCombinatorics {
+	public static void main(String[] args) {
+		LogCombinatorics logCombinatorics = new LogCombinatorics();
+		CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+		
+		System.out.println("ln(20!) (exact, log space): " + Math.log(comsAndPerms.factorial(20).doubleValue()) + ", " + logCombinatorics.logFactorial(20));
+		System.out.println("ln(C(50, 20)) (exact, log space): " + Math.log(comsAndPerms.combinations(50, 20).doubleValue()) + ", " + logCombinatorics.logChoose(50, 20));
+		System.out.println("ln(P(30, 12)) (exact, log space): " + Math.log(comsAndPerms.permutations(30, 12).doubleValue()) + ", " + logCombinatorics.logPermutations(30, 12));
+		
+		System.out.println("500! as a double: " + comsAndPerms.factorial(500).doubleValue() + ", ln(500!): " + logCombinatorics.logFactorial(500));
+		
+		System.out.println("ln(gamma(0.5)), ln(sqrt(pi)): " + logCombinatorics.logGamma(0.5) + ", " + 0.5 * Math.log(Math.PI));
+		System.out.println("ln(gamma(5)), ln(4!): " + logCombinatorics.logGamma(5) + ", " + Math.log(24));
+		System.out.println("ln(gamma(20.5)): " + logCombinatorics.logGamma(20.5));
+		
+		System.out.println("ln(C(1000000000, 3)): " + logCombinatorics.logChoose(1000000000, 3));
+		System.out.println("ln(C(1000000000, 500000000)): " + logCombinatorics.logChoose(1000000000, 500000000));
+		System.out.println("ln(1000000000!): " + logCombinatorics.logFactorial(1000000000));
+		
+		BinomialDistribution binomial = new BinomialDistribution();
+		System.out.println("P(Y = 5000) for 10000 trials with p = 0.5: " + binomial.exactly(10000, 5000, 0.5));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Tester for MappedDoubleColumn. Writes a temporary file of packed little-endian
+ * doubles, maps it with deliberately small chunks so that every computation has to
+ * cross chunk boundaries, and compares the results with NumericalMeasures on the same
+ * values held in an array.
+ * 
+ * @author Ian Mays
+ */
+public class TestMappedDoubleColumn {
+	public static void main(String[] args) throws IOException {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		Random random = new Random(3);
+		double[] numbers = new double[1000003];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = 50 + 10 * random.nextGaussian();
+		}
+		
+		Path file = writeColumn(numbers);
+		
+		try (MappedDoubleColumn column = new MappedDoubleColumn(file, 100000)) {
+			System.out.println("Mapped " + column.size() + " doubles in " + column.getChunkCount() + " chunks");
+			System.out.println("Average (array, column): " + measures.findMean(numbers) + ", " + column.findMean());
+			System.out.println("Variance (array, column): " + measures.variance(numbers) + ", " + column.variance());
+			System.out.println("Average of first chunk (NumericalMeasures on the mapped buffer): " + measures.findMean(column.getChunk(0)));
+			System.out.println("Min, max: " + column.getMin() + ", " + column.getMax());
+			System.out.println("Median (array, column): " + measures.findMedian(numbers) + ", " + column.findMedian());
+			System.out.println("0.99 quantile (array, column, column estimate): " + measures.quantile(numbers, 0.99) + ", " + column.quantile(0.99) + ", " + column.approximateQuantile(0.99));
+		} finally {
+			Files.delete(file);
+		}
+		
+		// a NaN sorts last, so it is not the median of three values
+		double[] withNaN = {1.0, 2.0, Double.NaN};
+		Path nanFile = writeColumn(withNaN);
+		
+		try (MappedDoubleColumn column = new MappedDoubleColumn(nanFile)) {
+			System.out.println("Median of {1, 2, NaN} (array, column): " + measures.findMedian(withNaN) + ", " + column.findMedian());
+		} finally {
+			Files.delete(nanFile);
+		}
+		
+		// mostly one value, so the answers fall on long runs of ties
+		double[] tied = new double[200000];
+		for (int i = 0; i < tied.length; i++) {
+			tied[i] = i % 10 == 0 ? random.nextDouble() : 7.0;
+		}
+		Path tiedFile = writeColumn(tied);
+		
+		try (MappedDoubleColumn column = new MappedDoubleColumn(tiedFile, 30000)) {
+			System.out.println("Median of mostly 7s (array, column): " + measures.findMedian(tied) + ", " + column.findMedian());
+			System.out.println("0.05 quantile of mostly 7s (array, column): " + measures.quantile(tied, 0.05) + ", " + column.quantile(0.05));
+		} finally {
+			Files.delete(tiedFile);
+		}
+	}
+	
+	/**
+	 * Writes values to a new temporary file as packed little-endian doubles.
+	 * @param values The values to write
+	 * @return The file
+	 * @throws IOException if the file cannot be written
+	 */
+	private static Path writeColumn(double[] values) throws IOException {
+		Path file = Files.createTempFile("column", ".bin");
+		ByteBuffer bytes = ByteBuffer.allocate(8 * values.length).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asDoubleBuffer().put(values);
+		
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+		
+		return file;
+	}
+}
\ No newline at end of file
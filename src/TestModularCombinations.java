@@ -0,0 +1,37 @@
+import java.math.BigInteger;
+
+/**
+ * Tester for ModularCombinations. Checks combinations and permutations mod a prime
+ * against reducing the exact values from CombinationsAndPermutations, both inside
+ * the tables and beyond them with Lucas's theorem.
+ * 
+ * @author Ian Mays
+ */
+public class TestModularCombinations {
+	public static void main(String[] args) {
+		CombinationsAndPermutations comsAndPerms = new CombinationsAndPermutations();
+		ModularCombinations modular = new ModularCombinations(1000000007);
+		BigInteger modulus = BigInteger.valueOf(modular.getModulus());
+		
+		System.out.println("Modulus: " + modular.getModulus() + ", table size: " + modular.getTableSize());
+		System.out.println("C(20, 10) mod p = " + modular.combinations(20, 10));
+		System.out.println("C(100000, 50000) mod p = " + modular.combinations(100000, 50000) + ", from the exact value: " + comsAndPerms.combinations(100000, 50000).mod(modulus));
+		System.out.println("P(100000, 3) mod p = " + modular.permutations(100000, 3) + ", from the exact value: " + comsAndPerms.permutations(100000, 3).mod(modulus));
+		System.out.println("20! mod p = " + modular.factorial(20) + ", from the exact value: " + comsAndPerms.factorial(20).mod(modulus));
+		System.out.println("C(10^18, 3) mod p = " + modular.combinations(1000000000000000000L, 3));
+		
+		// a small prime and table, so that Lucas's theorem and the direct products are used
+		ModularCombinations small = new ModularCombinations(101, 10);
+		BigInteger smallModulus = BigInteger.valueOf(101);
+		boolean allMatch = true;
+		
+		for (int n = 0; n <= 1000; n += 37) {
+			for (int r = 0; r <= n; r += 11) {
+				allMatch &= small.combinations(n, r) == comsAndPerms.combinations(n, r).mod(smallModulus).longValue();
+				allMatch &= small.permutations(n, r) == comsAndPerms.permutations(n, r).mod(smallModulus).longValue();
+			}
+		}
+		
+		System.out.println("Mod 101 with a table of 10 matches the exact values: " + allMatch);
+	}
+}
\ No newline at end of file
@@ -1,8 +1,12 @@
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Tester for NumericalMeasures. Among other things, tests median with both odd- and
- * even-sized lists.
+ * even-sized lists, checks that the double[], slice, and DoubleBuffer versions
+ * agree with the ArrayList versions, and finds every mode of a multimodal array.
  * 
  * @author Ian Mays
  */
@@ -36,5 +40,35 @@ public class TestNumericalMeasures {
 		System.out.println();
 		System.out.println("testNumbers = " + testNumbers);
 		System.out.println("Median of testNumbers: " + median);
+		
+		double[] primitiveNumbers = {9.0, 2.0, 4.0, 4.0, 1.0, 3.0, 6.0, 9.0};
+		double[] sliceCopy = Arrays.copyOfRange(primitiveNumbers, 1, 7);
+		DoubleBuffer directNumbers = ByteBuffer.allocateDirect(8 * primitiveNumbers.length).asDoubleBuffer();
+		directNumbers.put(primitiveNumbers).position(1).limit(7);
+		
+		System.out.println();
+		System.out.println("primitiveNumbers = " + Arrays.toString(primitiveNumbers) + ", slice [1, 7)");
+		System.out.println("Average (array, slice, buffer): " + measures.findMean(sliceCopy) + ", " + measures.findMean(primitiveNumbers, 1, 6) + ", " + measures.findMean(directNumbers));
+		System.out.println("Median (array, slice, buffer): " + measures.findMedian(sliceCopy) + ", " + measures.findMedian(primitiveNumbers, 1, 6) + ", " + measures.findMedian(directNumbers));
+		System.out.println("Mode (array, slice, buffer): " + measures.findMode(sliceCopy) + ", " + measures.findMode(primitiveNumbers, 1, 6) + ", " + measures.findMode(directNumbers));
+		System.out.println("Variance (array, slice, buffer): " + measures.variance(sliceCopy) + ", " + measures.variance(primitiveNumbers, 1, 6) + ", " + measures.variance(directNumbers));
+		System.out.println("Standard deviation (array, slice, buffer): " + measures.standardDeviation(sliceCopy) + ", " + measures.standardDeviation(primitiveNumbers, 1, 6) + ", " + measures.standardDeviation(directNumbers));
+		System.out.println("Array unchanged: " + Arrays.toString(primitiveNumbers));
+		
+		double[] multimodalNumbers = {5.0, 1.0, 3.0, 5.0, 1.0, 2.0, 3.0, 5.0, 3.0, 1.0};
+		ModeResult modes = measures.findModes(multimodalNumbers);
+		DoubleCountMap table = measures.frequencyTable(multimodalNumbers);
+		double[] distinctValues = table.keys();
+		Arrays.sort(distinctValues);
+		
+		System.out.println();
+		System.out.println("multimodalNumbers = " + Arrays.toString(multimodalNumbers));
+		System.out.println("Mode: " + measures.findMode(multimodalNumbers));
+		System.out.println("All modes: " + Arrays.toString(modes.getModes()) + ", each occurring " + modes.getFrequency() + " times");
+		System.out.print("Frequency table:");
+		for (double value : distinctValues) {
+			System.out.print(" " + value + "=" + table.get(value));
+		}
+		System.out.println();
 	}
 }
\ No newline at end of file
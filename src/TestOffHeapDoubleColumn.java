@@ -0,0 +1,67 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tester for OffHeapDoubleColumn. Fills a column with small chunks, so the values span
+ * several of them, and compares NumericalMeasures, OrderStatistics, and
+ * ArrayListSorter on the column with the same calls on a heap array, including
+ * searches through a reused scratch column, then checks that a closed column refuses
+ * to be copied.
+ * 
+ * @author Ian Mays
+ */
+public class TestOffHeapDoubleColumn {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		OrderStatistics orderStatistics = new OrderStatistics();
+		ArrayListSorter sorter = new ArrayListSorter();
+		
+		Random random = new Random(42);
+		double[] numbers = new double[300001];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = Math.round(1000 * random.nextGaussian()) / 10.0;
+		}
+		
+		try (OffHeapDoubleColumn column = new OffHeapDoubleColumn(100000)) {
+			column.addAll(numbers);
+			
+			System.out.println("Stored " + column.size() + " doubles in " + column.getChunkCount() + " chunks");
+			System.out.println("Average (array, column): " + measures.findMean(numbers) + ", " + measures.findMean(column));
+			System.out.println("Variance (array, column): " + measures.variance(numbers) + ", " + measures.variance(column));
+			System.out.println("Median (array, column): " + measures.findMedian(numbers) + ", " + measures.findMedian(column));
+			System.out.println("Mode (array, column): " + measures.findMode(numbers) + ", " + measures.findMode(column));
+			System.out.println("0.9 quantile (array, column): " + orderStatistics.quantile(numbers, 0.9) + ", " + orderStatistics.quantile(column, 0.9));
+			System.out.println("Rank 1000 (array, column): " + orderStatistics.select(numbers, 1000) + ", " + orderStatistics.select(column, 1000));
+			System.out.println("Column unchanged by the searches: " + Arrays.equals(numbers, column.toArray()));
+			
+			try (OffHeapDoubleColumn scratch = new OffHeapDoubleColumn(100000)) {
+				System.out.println("Median, 0.9 quantile, rank 1000 (scratch column): " + orderStatistics.median(column, scratch) + ", " + orderStatistics.quantile(column, 0.9, scratch) + ", " + orderStatistics.select(column, 1000, scratch));
+			}
+			
+			try (OffHeapDoubleColumn scratch = new OffHeapDoubleColumn(50000)) {
+				orderStatistics.median(column, scratch);
+				System.out.println("Scratch column with a different chunk size did not fail");
+			} catch (StatsException e) {
+				System.out.println("Scratch column with a different chunk size: " + e.getMessage());
+			}
+			
+			double[] sortedNumbers = numbers.clone();
+			Arrays.sort(sortedNumbers);
+			sorter.sortInPlace(column);
+			
+			System.out.println("Column sorted in place matches Arrays.sort: " + Arrays.equals(sortedNumbers, column.toArray()));
+			System.out.println("Min, max of sorted column: " + column.get(0) + ", " + column.get(column.size() - 1));
+		}
+		
+		OffHeapDoubleColumn closed = new OffHeapDoubleColumn(100000);
+		closed.addAll(numbers);
+		closed.close();
+		
+		try {
+			closed.copy();
+			System.out.println("Copying a closed column did not fail");
+		} catch (StatsException e) {
+			System.out.println("Copying a closed column: " + e.getMessage());
+		}
+	}
+}
\ No newline at end of file
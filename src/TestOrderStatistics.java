@@ -0,0 +1,49 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tester for OrderStatistics. Finds single and multiple order statistics, medians,
+ * and quantiles of a small array, then checks a large random array (with plenty of
+ * repeated values) against the results of a full sort.
+ * 
+ * @author Ian Mays
+ */
+public class TestOrderStatistics {
+	public static void main(String[] args) {
+		OrderStatistics orderStatistics = new OrderStatistics();
+		
+		double[] testNumbers = {9.0, 2.0, 4.0, 4.0, 1.0, 3.0, 6.0, 7.5};
+		
+		System.out.println("testNumbers = " + Arrays.toString(testNumbers));
+		System.out.println("Minimum (rank 0): " + orderStatistics.select(testNumbers, 0));
+		System.out.println("Rank 3: " + orderStatistics.select(testNumbers, 3));
+		System.out.println("Ranks 7, 0, 4: " + Arrays.toString(orderStatistics.selectAll(testNumbers, new int[] {7, 0, 4})));
+		System.out.println("Median: " + orderStatistics.median(testNumbers));
+		System.out.println("Quartiles: " + Arrays.toString(orderStatistics.quantiles(testNumbers, new double[] {0.25, 0.5, 0.75})));
+		System.out.println("Array unchanged: " + Arrays.toString(testNumbers));
+		
+		double[] inPlace = testNumbers.clone();
+		System.out.println("Median in place: " + orderStatistics.medianInPlace(inPlace) + ", array is now " + Arrays.toString(inPlace));
+		
+		Random random = new Random(42);
+		double[] bigNumbers = new double[100001];
+		for (int i = 0; i < bigNumbers.length; i++) {
+			bigNumbers[i] = random.nextInt(1000) / 4.0;
+		}
+		
+		double[] sorted = bigNumbers.clone();
+		Arrays.sort(sorted);
+		
+		int[] ranks = {0, 17, 25000, 50000, 99999, 100000};
+		double[] selected = orderStatistics.selectAll(bigNumbers, ranks);
+		boolean allMatch = true;
+		for (int i = 0; i < ranks.length; i++) {
+			allMatch &= selected[i] == sorted[ranks[i]];
+		}
+		
+		System.out.println();
+		System.out.println("Random array of " + bigNumbers.length + " values");
+		System.out.println("Ranks " + Arrays.toString(ranks) + " match full sort: " + allMatch);
+		System.out.println("Median (selection, full sort): " + orderStatistics.median(bigNumbers) + ", " + sorted[sorted.length/2]);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tester for ParallelMeasures. Compares the parallel results on a large random array
+ * with the serial results from NumericalMeasures, and checks that the same split size
+ * gives exactly the same answer on pools of different sizes.
+ * 
+ * @author Ian Mays
+ */
+public class TestParallelMeasures {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		ParallelMeasures parallel = new ParallelMeasures(10000);
+		ParallelMeasures singleThreaded = new ParallelMeasures(new ForkJoinPool(1), 10000);
+		
+		Random random = new Random(7);
+		double[] bigNumbers = new double[2000000];
+		for (int i = 0; i < bigNumbers.length; i++) {
+			bigNumbers[i] = 1000 + random.nextInt(500) / 8.0;
+		}
+		
+		System.out.println("Random array of " + bigNumbers.length + " values, split size " + parallel.getSplitSize());
+		System.out.println("Average (serial, parallel): " + measures.findMean(bigNumbers) + ", " + parallel.findMean(bigNumbers));
+		System.out.println("Median (serial, parallel): " + measures.findMedian(bigNumbers) + ", " + parallel.findMedian(bigNumbers));
+		System.out.println("Mode (serial, parallel): " + measures.findMode(bigNumbers) + ", " + parallel.findMode(bigNumbers));
+		System.out.println("Variance (serial, parallel): " + measures.variance(bigNumbers) + ", " + parallel.variance(bigNumbers));
+		System.out.println("Standard deviation (serial, parallel): " + measures.standardDeviation(bigNumbers) + ", " + parallel.standardDeviation(bigNumbers));
+		System.out.println("Same variance on a one-thread pool: " + (parallel.variance(bigNumbers) == singleThreaded.variance(bigNumbers)));
+		
+		double[] smallNumbers = {2.0, 4.0, 4.0, 1.0, 3.0};
+		System.out.println();
+		System.out.println("Small array falls back to serial, variance: " + parallel.variance(smallNumbers));
+	}
+}
\ No newline at end of file
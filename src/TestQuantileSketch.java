@@ -0,0 +1,60 @@
+import java.util.Random;
+
+/**
+ * Tester for QuantileSketch. Streams a million random values into two sketches on
+ * separate "workers", sends one of them through toBytes() and back, merges them, and
+ * compares the estimated quantiles with the exact ones from NumericalMeasures.
+ * 
+ * @author Ian Mays
+ */
+public class TestQuantileSketch {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		double[] smallNumbers = {2.0, 4.0, 4.0, 1.0, 3.0, 6.0};
+		QuantileSketch smallSketch = new QuantileSketch();
+		smallSketch.addAll(smallNumbers);
+		System.out.println("Small sketch is exact, median (exact, sketch): " + measures.findMedian(smallNumbers) + ", " + smallSketch.findMedian());
+		
+		Random random = new Random(11);
+		double[] bigNumbers = new double[1000000];
+		for (int i = 0; i < bigNumbers.length; i++) {
+			bigNumbers[i] = Math.exp(random.nextGaussian());
+		}
+		
+		// fixed seeds keep the output the same from run to run, and differ so the
+		// workers' errors are independent
+		QuantileSketch workerA = new QuantileSketch(QuantileSketch.DEFAULT_K, 1);
+		QuantileSketch workerB = new QuantileSketch(QuantileSketch.DEFAULT_K, 2);
+		for (int i = 0; i < bigNumbers.length; i++) {
+			if (i < bigNumbers.length / 3) {
+				workerA.add(bigNumbers[i]);
+			} else {
+				workerB.add(bigNumbers[i]);
+			}
+		}
+		
+		byte[] serialized = workerB.toBytes();
+		QuantileSketch merged = workerA;
+		merged.merge(new QuantileSketch(serialized));
+		
+		System.out.println();
+		System.out.println("Random log-normal array of " + bigNumbers.length + " values");
+		System.out.println("Worker B serialized to " + serialized.length + " bytes");
+		System.out.println("Merged sketch holds " + merged.getRetainedCount() + " of " + merged.getCount() + " values");
+		System.out.println("q     exact     sketch    true rank of sketch value");
+		
+		double[] qs = {0.5, 0.95, 0.99};
+		for (double q : qs) {
+			double estimate = merged.quantile(q);
+			int atOrBelow = 0;
+			for (double singleElement : bigNumbers) {
+				if (singleElement <= estimate) {
+					atOrBelow++;
+				}
+			}
+			
+			System.out.printf("%-5.2f %-9f %-9f %-9f\n", q, measures.quantile(bigNumbers, q), estimate, (double) atOrBelow / bigNumbers.length);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * Tester for RollingWindow. Streams values through a window of five and, at each
+ * tick, compares the window's rolling mean, variance, and median with the results of
+ * running NumericalMeasures on a fresh copy of the window, then checks that the
+ * moments recover once a NaN has left a window.
+ * 
+ * @author Ian Mays
+ */
+public class TestRollingWindow {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		RollingWindow window = new RollingWindow(5);
+		
+		double[] stream = {2.0, 4.0, 4.0, 1.0, 3.0, 6.0, 10.0, -2.0, 4.0, 4.5, 7.0, 1.0};
+		
+		System.out.println("Window capacity: " + window.getCapacity());
+		System.out.println("tick window                          mean      variance  median    (NumericalMeasures mean, variance, median)");
+		
+		for (int i = 0; i < stream.length; i++) {
+			window.add(stream[i]);
+			double[] contents = window.toArray();
+			
+			if (contents.length < 2) {
+				continue;
+			}
+			
+			System.out.printf("%-4d %-32s %-9f %-9f %-9f (%f, %f, %f)\n", i, Arrays.toString(contents), window.findMean(), window.variance(), window.findMedian(), measures.findMean(contents), measures.variance(contents), measures.findMedian(contents));
+		}
+		
+		// the moments must recover as soon as a NaN has passed through the window
+		RollingWindow withNaN = new RollingWindow(3);
+		for (double value : new double[] {1.0, Double.NaN, 2.0, 3.0, 4.0, 5.0}) {
+			withNaN.add(value);
+		}
+		
+		System.out.println();
+		System.out.println("After a NaN passed through " + Arrays.toString(withNaN.toArray()) + ": mean " + withNaN.findMean() + ", variance " + withNaN.variance());
+	}
+}
\ No newline at end of file
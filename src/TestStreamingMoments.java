@@ -0,0 +1,36 @@
+import java.util.Arrays;
+
+/**
+ * Tester for StreamingMoments. Compares the one-pass results with the two-pass
+ * results from NumericalMeasures, both for values added one at a time and for an
+ * array split into shards that are accumulated separately and then merged.
+ * 
+ * @author Ian Mays
+ */
+public class TestStreamingMoments {
+	public static void main(String[] args) {
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		double[] testNumbers = {2.0, 4.0, 4.0, 1.0, 3.0, 6.0, 1000000.5, 1000001.5, 7.25};
+		
+		StreamingMoments oneAtATime = new StreamingMoments();
+		for (double singleElement : testNumbers) {
+			oneAtATime.add(singleElement);
+		}
+		
+		StreamingMoments shardA = new StreamingMoments();
+		StreamingMoments shardB = new StreamingMoments();
+		StreamingMoments shardC = new StreamingMoments();
+		shardA.addAll(testNumbers, 0, 4);
+		shardB.addAll(testNumbers, 4, 3);
+		shardC.addAll(testNumbers, 7, 2);
+		shardA.merge(shardB);
+		shardA.merge(shardC);
+		
+		System.out.println("testNumbers = " + Arrays.toString(testNumbers));
+		System.out.println("Count (one at a time, merged shards): " + oneAtATime.getCount() + ", " + shardA.getCount());
+		System.out.println("Average (NumericalMeasures, one at a time, merged shards): " + measures.findMean(testNumbers) + ", " + oneAtATime.findMean() + ", " + shardA.findMean());
+		System.out.println("Variance (NumericalMeasures, one at a time, merged shards): " + measures.variance(testNumbers) + ", " + oneAtATime.variance() + ", " + shardA.variance());
+		System.out.println("Standard deviation (NumericalMeasures, one at a time, merged shards): " + measures.standardDeviation(testNumbers) + ", " + oneAtATime.standardDeviation() + ", " + shardA.standardDeviation());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tester for SummaryKernel and PowerSums. Compares the unrolled loops with plain
+ * loops over the same values, including slices whose lengths are not a multiple of
+ * the number of lanes.
+ * 
+ * @author Ian Mays
+ */
+public class TestSummaryKernel {
+	public static void main(String[] args) {
+		SummaryKernel kernel = new SummaryKernel();
+		NumericalMeasures measures = new NumericalMeasures();
+		
+		double[] testNumbers = {2.0, 4.0, 4.0, 1.0, 3.0, 6.0, -7.5};
+		PowerSums sums = measures.summarize(testNumbers);
+		
+		System.out.println("testNumbers = " + Arrays.toString(testNumbers));
+		System.out.println("Count, sum, sum of squares: " + sums.getCount() + ", " + sums.getSum() + ", " + sums.getSumOfSquares());
+		System.out.println("Min, max: " + sums.getMin() + ", " + sums.getMax());
+		System.out.println("Average (PowerSums, NumericalMeasures): " + sums.findMean() + ", " + measures.findMean(testNumbers));
+		System.out.println("Variance (PowerSums, NumericalMeasures): " + sums.variance() + ", " + measures.variance(testNumbers));
+		System.out.println("Slice [2, 7) sum: " + kernel.sum(testNumbers, 2, 5));
+		
+		Random random = new Random(42);
+		double[] bigNumbers = new double[1000003];
+		for (int i = 0; i < bigNumbers.length; i++) {
+			bigNumbers[i] = 100 + 15 * random.nextGaussian();
+		}
+		
+		double plainSum = 0;
+		double plainMin = Double.POSITIVE_INFINITY;
+		double plainMax = Double.NEGATIVE_INFINITY;
+		for (double singleElement : bigNumbers) {
+			plainSum += singleElement;
+			plainMin = Math.min(plainMin, singleElement);
+			plainMax = Math.max(plainMax, singleElement);
+		}
+		
+		double plainMean = plainSum / bigNumbers.length;
+		double plainSquaredDeviations = 0;
+		for (double singleElement : bigNumbers) {
+			plainSquaredDeviations += (singleElement - plainMean) * (singleElement - plainMean);
+		}
+		
+		PowerSums bigSums = kernel.summarize(bigNumbers, 0, bigNumbers.length);
+		double kernelSquaredDeviations = kernel.sumOfSquaredDeviations(bigNumbers, 0, bigNumbers.length, plainMean);
+		
+		System.out.println();
+		System.out.println("1000003 normal values with mean 100 and standard deviation 15:");
+		System.out.println("Sums agree to 1e-9 relative: " + (Math.abs(bigSums.getSum() - plainSum) <= 1e-9 * Math.abs(plainSum)));
+		System.out.println("Squared deviations agree to 1e-9 relative: " + (Math.abs(kernelSquaredDeviations - plainSquaredDeviations) <= 1e-9 * plainSquaredDeviations));
+		System.out.println("Min and max match: " + (bigSums.getMin() == plainMin && bigSums.getMax() == plainMax));
+		System.out.println("NaN propagates to the min: " + Double.isNaN(kernel.summarize(new double[] {1.0, Double.NaN, 3.0, 4.0, 5.0}, 0, 5).getMin()));
+	}
+}
\ No newline at end of file